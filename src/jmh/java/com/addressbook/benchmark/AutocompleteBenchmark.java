@@ -0,0 +1,49 @@
+package com.addressbook.benchmark;
+
+import com.addressbook.repository.InMemoryContactRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of completing the first one or three letters of a name, as a typeahead would on each keystroke.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AutocompleteBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int contacts;
+
+    @Param({"1", "3"})
+    public int prefixLength;
+
+    private InMemoryContactRepository repository;
+    private String prefix;
+
+    @Setup
+    public void setUp() {
+        repository = BenchmarkData.repository("heap", contacts);
+        prefix = BenchmarkData.surname(7 * BenchmarkData.FIRST_NAMES).substring(0, prefixLength);
+    }
+
+    @Benchmark
+    public List<String> complete() {
+        return repository.complete(prefix, 10);
+    }
+}
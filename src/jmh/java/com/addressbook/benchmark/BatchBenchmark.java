@@ -0,0 +1,70 @@
+package com.addressbook.benchmark;
+
+import com.addressbook.model.Contact;
+import com.addressbook.model.ContactRequest;
+import com.addressbook.model.ContactUpdateRequest;
+import com.addressbook.service.ContactService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/** Cost of one {@code /create} or {@code /update} batch through {@link ContactService}, by batch size. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchBenchmark {
+
+    private static final int CONTACTS = 100_000;
+
+    @Param({"1", "100", "10000"})
+    public int batchSize;
+
+    @Param({"heap"})
+    public String engine;
+
+    private ContactService service;
+    private List<ContactRequest> creates;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        service = BenchmarkData.service(BenchmarkData.repository(engine, CONTACTS));
+        creates = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            Contact contact = BenchmarkData.contact(CONTACTS + i);
+            creates.add(new ContactRequest(contact.getName(), contact.getPhone(), contact.getEmail()));
+        }
+    }
+
+    @Benchmark
+    public List<Contact> create() {
+        return service.createContacts(creates);
+    }
+
+    @Benchmark
+    public List<Contact> update() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<ContactUpdateRequest> updates = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            int key = random.nextInt(CONTACTS);
+            updates.add(new ContactUpdateRequest(BenchmarkData.id(key), null, "+1 555 " + random.nextInt(10_000_000), null));
+        }
+        return service.updateContacts(updates);
+    }
+}
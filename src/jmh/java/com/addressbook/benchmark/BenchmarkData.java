@@ -0,0 +1,109 @@
+package com.addressbook.benchmark;
+
+import com.addressbook.model.Contact;
+import com.addressbook.model.ContactId;
+import com.addressbook.repository.InMemoryContactRepository;
+import com.addressbook.service.ContactService;
+import com.addressbook.service.SearchResultCache;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic synthetic address books. Contact {@code i} is named after one of 64 first names and one of
+ * 1024 surnames, so queries of known selectivity can be built for any book size.
+ */
+final class BenchmarkData {
+
+    static final int FIRST_NAMES = 64;
+    static final int SURNAMES = 1024;
+
+    private static final String[] FIRST = {
+            "Alice", "Bob", "Carol", "Dave", "Erin", "Frank", "Grace", "Heidi", "Ivan", "Judy", "Karl", "Liam",
+            "Mallory", "Nina", "Oscar", "Peggy", "Quinn", "Rupert", "Sybil", "Trent", "Uma", "Victor", "Walter",
+            "Xena", "Yara", "Zoe", "Aaron", "Bianca", "Cedric", "Delia", "Edgar", "Fiona", "Gustav", "Hana",
+            "Igor", "Jasmin", "Kenji", "Leona", "Marek", "Noor", "Otto", "Paula", "Quentin", "Rosa", "Stefan",
+            "Tessa", "Ulrich", "Vera", "Wen", "Ximena", "Yusuf", "Zeynep", "Anouk", "Bruno", "Chiara", "Dmitri",
+            "Elif", "Felix", "Greta", "Hugo", "Ines", "Jonas", "Kira", "Lukas"};
+
+    private static final String SYLLABLES = "bcdfghjklmnprstvz";
+    private static final String VOWELS = "aeiou";
+
+    private BenchmarkData() {
+    }
+
+    static String id(int i) {
+        return ContactId.toString(0x0000_0000_0000_7000L | ((long) i << 16), 0x8000_0000_0000_0000L | i);
+    }
+
+    static String firstName(int i) {
+        return FIRST[i % FIRST_NAMES];
+    }
+
+    /** Pronounceable surname, distinct for each value modulo {@link #SURNAMES}. */
+    static String surname(int i) {
+        int n = Math.floorMod(i / FIRST_NAMES, SURNAMES);
+        StringBuilder name = new StringBuilder();
+        for (int k = 0; k < 3; k++) {
+            name.append(SYLLABLES.charAt(n % SYLLABLES.length()));
+            n /= SYLLABLES.length();
+            name.append(VOWELS.charAt(n % VOWELS.length()));
+            n /= VOWELS.length();
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.append("ski").toString();
+    }
+
+    static Contact contact(int i) {
+        return new Contact(id(i), firstName(i) + " " + surname(i), String.format("+1 555 %07d", i),
+                firstName(i).toLowerCase() + "." + i + "@example.com");
+    }
+
+    static InMemoryContactRepository repository(String engine, int contacts) {
+        return repository(engine, 1, contacts);
+    }
+
+    static InMemoryContactRepository repository(String engine, int shards, int contacts) {
+        InMemoryContactRepository repository = new InMemoryContactRepository(engine, shards);
+        List<Contact> chunk = new ArrayList<>();
+        for (int i = 0; i < contacts; i++) {
+            chunk.add(contact(i));
+            if (chunk.size() == 100_000 || i == contacts - 1) {
+                repository.saveAll(chunk);
+                chunk.clear();
+            }
+        }
+        return repository;
+    }
+
+    /**
+     * A ContactService wired as the application wires it, with its own search result cache listening to
+     * {@code repository}. Fails if the service gains a dependency this method does not set.
+     */
+    static ContactService service(InMemoryContactRepository repository) {
+        SearchResultCache searchCache = new SearchResultCache();
+        searchCache.setRepository(repository);
+        ContactService service = new ContactService();
+        try {
+            set(service, "repository", repository);
+            set(service, "searchCache", searchCache);
+            for (Field field : ContactService.class.getDeclaredFields()) {
+                field.setAccessible(true);
+                if (field.isAnnotationPresent(Autowired.class) && field.get(service) == null) {
+                    throw new IllegalStateException("BenchmarkData.service does not set ContactService." + field.getName());
+                }
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        return service;
+    }
+
+    private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,59 @@
+package com.addressbook.benchmark;
+
+import com.addressbook.model.Contact;
+import com.addressbook.repository.InMemoryContactRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fuzzy name search latency by book size, for a surname with two transposed letters alone and together with a
+ * misspelled first name, returning the ten closest contacts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FuzzySearchBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int contacts;
+
+    @Param({"surname", "full-name"})
+    public String words;
+
+    private InMemoryContactRepository repository;
+    private String query;
+
+    @Setup
+    public void setUp() {
+        repository = BenchmarkData.repository("heap", contacts);
+        int i = 7 * BenchmarkData.FIRST_NAMES + 3;
+        char[] surname = BenchmarkData.surname(i).toLowerCase().toCharArray();
+        char swapped = surname[1];
+        surname[1] = surname[2];
+        surname[2] = swapped;
+        query = new String(surname);
+        if ("full-name".equals(words)) {
+            query = BenchmarkData.firstName(i).toLowerCase() + "x " + query;
+        }
+    }
+
+    @Benchmark
+    public List<Contact> fuzzySearch() {
+        return repository.findByFuzzyName(query, 10);
+    }
+}
@@ -0,0 +1,121 @@
+package com.addressbook.benchmark;
+
+import com.addressbook.AddressBookApplication;
+import com.addressbook.constants.Constants;
+import com.addressbook.model.Contact;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end HTTP load against the application with Tomcat on its platform-thread pool or on virtual threads.
+ * {@code create} posts one contact with the write-ahead log fsyncing every commit, so each request blocks until
+ * its group commit lands; {@code search} is a selective search with no blocking. Run with more client threads
+ * than Tomcat's 200 workers ({@code -t 400}) to see the platform pool queue requests; the sample-time mode
+ * reports p99. {@code virtualThreads=true} needs a Java 21 runtime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class HttpLoadBenchmark {
+
+    private static final int CONTACTS = 10_000;
+    private static final int SEED_BATCH = 1_000;
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"create", "search"})
+    public String workload;
+
+    private Path walDirectory;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need Java 21, running on " + Runtime.version());
+        }
+        walDirectory = Files.createTempDirectory("http-load-benchmark");
+        context = new SpringApplicationBuilder(AddressBookApplication.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--addressbook.wal.enabled=true",
+                "--addressbook.wal.dir=" + walDirectory,
+                "--addressbook.wal.durability=sync",
+                "--logging.level.com.addressbook=warn");
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        for (int start = 0; start < CONTACTS; start += SEED_BATCH) {
+            StringBuilder batch = new StringBuilder("[");
+            for (int i = start; i < start + SEED_BATCH; i++) {
+                batch.append(i == start ? "" : ",").append(json(BenchmarkData.contact(i)));
+            }
+            post(Constants.RequestMapping.CREATE_CONTACT, batch.append(']').toString());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(walDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public String request() throws Exception {
+        int i = ThreadLocalRandom.current().nextInt(CONTACTS);
+        if (workload.equals("create")) {
+            return post(Constants.RequestMapping.CREATE_CONTACT, "[" + json(BenchmarkData.contact(CONTACTS + i)) + "]");
+        }
+        return post(Constants.RequestMapping.SEARCH_CONTACT,
+                "{\"query\":\"" + BenchmarkData.surname(i).toLowerCase() + "\",\"limit\":20}");
+    }
+
+    private String post(String path, String json) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(path + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private static String json(Contact contact) {
+        return "{\"name\":\"" + contact.getName() + "\",\"phone\":\"" + contact.getPhone()
+                + "\",\"email\":\"" + contact.getEmail() + "\"}";
+    }
+}
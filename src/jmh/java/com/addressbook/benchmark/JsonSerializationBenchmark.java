@@ -0,0 +1,103 @@
+package com.addressbook.benchmark;
+
+import com.addressbook.controller.WireFormatConfiguration;
+import com.addressbook.model.Contact;
+import com.addressbook.repository.InMemoryContactRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing a search result as the {@code /search} JSON array and as {@code /search/stream} NDJSON,
+ * into a sink that only counts bytes so no response buffer is measured. With {@code cached=true} the contacts
+ * are read back from the repository and written with the application's fragment cache, which is filled by the
+ * first invocation of the warmup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int results;
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter listWriter;
+    private List<Contact> contacts;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        InMemoryContactRepository repository = cached ? new InMemoryContactRepository() : null;
+        if (cached) {
+            objectMapper.registerModule(new WireFormatConfiguration().cachedContactJsonModule());
+        }
+        listWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Contact.class));
+        contacts = new ArrayList<>(results);
+        for (int i = 0; i < results; i++) {
+            Contact contact = BenchmarkData.contact(i);
+            if (cached) {
+                repository.save(contact);
+                contact = repository.findById(contact.getId()).get();
+            }
+            contacts.add(contact);
+        }
+    }
+
+    @Benchmark
+    public long jsonArray() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        listWriter.writeValue(out, contacts);
+        return out.count;
+    }
+
+    @Benchmark
+    public long ndjson() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            for (Contact contact : contacts) {
+                generator.writeObject(contact);
+                generator.writeRaw('\n');
+            }
+        }
+        return out.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
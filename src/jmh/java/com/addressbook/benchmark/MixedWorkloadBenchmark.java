@@ -0,0 +1,103 @@
+package com.addressbook.benchmark;
+
+import com.addressbook.model.Contact;
+import com.addressbook.repository.InMemoryContactRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Throughput of a random mix of findById, search, save and read-modify-write update. Run it with
+ * {@code -t 1}, {@code -t 4}, {@code -t 16}, ... to see how it scales with threads. With {@code hotKeys=1}
+ * every write targets the same contact, which measures contention on a single id. Compare {@code shards=1}
+ * with one shard per core to see how much writers gain from not sharing a batch lock and trigram index.
+ * {@code globalLock=true} with {@code shards=1} is the baseline: every operation also takes one
+ * {@link ReentrantReadWriteLock}, reads shared and writes exclusive, as the repository did before it stored
+ * immutable contact versions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MixedWorkloadBenchmark {
+
+    @Param({"100000"})
+    public int contacts;
+
+    @Param({"50", "90", "99"})
+    public int readPercent;
+
+    @Param({"1", "100000"})
+    public int hotKeys;
+
+    @Param({"heap"})
+    public String engine;
+
+    @Param({"1"})
+    public int shards;
+
+    @Param({"false", "true"})
+    public boolean globalLock;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private InMemoryContactRepository repository;
+
+    @Setup
+    public void setUp() {
+        repository = BenchmarkData.repository(engine, shards, contacts);
+    }
+
+    @Benchmark
+    public Object operation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int roll = random.nextInt(100);
+        if (!globalLock) {
+            return roll < readPercent ? read(random, roll) : write(random, roll);
+        }
+        Lock held = roll < readPercent ? lock.readLock() : lock.writeLock();
+        held.lock();
+        try {
+            return roll < readPercent ? read(random, roll) : write(random, roll);
+        } finally {
+            held.unlock();
+        }
+    }
+
+    private Object read(ThreadLocalRandom random, int roll) {
+        if (roll % 10 == 0) {
+            return repository.search(BenchmarkData.surname(random.nextInt(contacts)).toLowerCase());
+        }
+        return repository.findById(BenchmarkData.id(random.nextInt(contacts)));
+    }
+
+    private Object write(ThreadLocalRandom random, int roll) {
+        int key = random.nextInt(Math.min(hotKeys, contacts));
+        if (roll % 2 == 0) {
+            Contact contact = BenchmarkData.contact(key);
+            contact.setPhone("+1 555 " + random.nextInt(10_000_000));
+            repository.save(contact);
+            return contact;
+        }
+        return repository.update(BenchmarkData.id(key), current -> {
+            current.setName(current.getName() + "");
+            return current;
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package com.addressbook.benchmark;
+
+import com.addressbook.model.Contact;
+import com.addressbook.repository.InMemoryContactRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search latency by book size and query selectivity: {@code unique} matches one contact, {@code surname} about
+ * 1/1024 of them, {@code first-name} 1/64, and {@code short} is a two-character query that scans every contact.
+ * {@code searchTop10} returns only the ten most relevant of the same matches. With several {@code shards} the
+ * search fans out over the common fork-join pool. {@code vectorScan=false} scans the packed text of short queries
+ * one byte at a time instead of with the Vector API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int contacts;
+
+    @Param({"unique", "surname", "first-name", "short"})
+    public String selectivity;
+
+    @Param({"heap"})
+    public String engine;
+
+    @Param({"1"})
+    public int shards;
+
+    @Param({"true"})
+    public boolean vectorScan;
+
+    private InMemoryContactRepository repository;
+    private String query;
+
+    @Setup
+    public void setUp() {
+        repository = BenchmarkData.repository(engine, shards, contacts);
+        repository.setVectorScan(vectorScan);
+        switch (selectivity) {
+            case "unique":
+                query = "." + (contacts / 2) + "@";
+                break;
+            case "surname":
+                query = BenchmarkData.surname(7 * BenchmarkData.FIRST_NAMES).toLowerCase();
+                break;
+            case "first-name":
+                query = BenchmarkData.firstName(3).toLowerCase() + ".";
+                break;
+            case "short":
+                query = "ze";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown selectivity: " + selectivity);
+        }
+    }
+
+    @Benchmark
+    public List<Contact> search() {
+        return repository.search(query);
+    }
+
+    @Benchmark
+    public List<Contact> searchTop10() {
+        return repository.searchRanked(query, 10);
+    }
+}
@@ -0,0 +1,85 @@
+package com.addressbook.benchmark;
+
+import com.addressbook.model.Contact;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-contact cost of encoding and decoding a {@code List<Contact>} body, as in {@code /create} and
+ * {@code /search}, in each wire format. The encoded size per contact is printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(WireFormatBenchmark.CONTACTS)
+public class WireFormatBenchmark {
+
+    static final int CONTACTS = 10_000;
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<Contact> contacts;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper;
+        switch (format) {
+            case "json":
+                mapper = new ObjectMapper();
+                break;
+            case "smile":
+                mapper = new SmileMapper();
+                break;
+            case "cbor":
+                mapper = new CBORMapper();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown format: " + format);
+        }
+        writer = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, Contact.class));
+        reader = mapper.readerFor(mapper.getTypeFactory().constructCollectionType(List.class, Contact.class));
+        contacts = new ArrayList<>(CONTACTS);
+        for (int i = 0; i < CONTACTS; i++) {
+            contacts.add(BenchmarkData.contact(i));
+        }
+        encoded = writer.writeValueAsBytes(contacts);
+        System.out.printf("%n%s: %.1f bytes per contact%n", format, (double) encoded.length / CONTACTS);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(contacts);
+    }
+
+    @Benchmark
+    public List<Contact> deserialize() throws IOException {
+        return reader.readValue(encoded);
+    }
+}
@@ -0,0 +1,71 @@
+package com.addressbook.benchmark;
+
+import com.addressbook.model.Contact;
+import com.addressbook.persistence.DurabilityMode;
+import com.addressbook.persistence.WriteAheadLog;
+import com.addressbook.repository.InMemoryContactRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Save throughput with the write-ahead log attached, per durability mode. Run with several threads
+ * ({@code -t 8}) to see how group commit shares one fsync between concurrent writers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteAheadLogBenchmark {
+
+    @Param({"SYNC", "INTERVAL", "OS"})
+    public DurabilityMode durability;
+
+    private Path directory;
+    private WriteAheadLog wal;
+    private InMemoryContactRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("wal-benchmark");
+        wal = WriteAheadLog.open(directory, durability, 50);
+        repository = new InMemoryContactRepository();
+        wal.replay(repository::save, repository::deleteById);
+        repository.setJournal(wal);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        wal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Contact save() {
+        Contact contact = BenchmarkData.contact(ThreadLocalRandom.current().nextInt(1_000_000));
+        repository.save(contact);
+        return contact;
+    }
+}
@@ -0,0 +1,34 @@
+package com.addressbook.actuator;
+
+import com.addressbook.repository.InMemoryContactRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memory footprint of the contact storage engine, exposed as {@code /actuator/storage}.
+ */
+@Component
+@Endpoint(id = "storage")
+public class StorageEndpoint {
+
+    @Autowired
+    private InMemoryContactRepository repository;
+
+    @ReadOperation
+    public Map<String, Object> storage() {
+        int contacts = repository.size();
+        long bytes = repository.estimatedStorageBytes();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("engine", repository.getStorageEngine());
+        report.put("contacts", contacts);
+        report.put("estimatedBytes", bytes);
+        report.put("bytesPerContact", contacts == 0 ? 0 : bytes / contacts);
+        report.put("estimatedIndexBytes", repository.estimatedIndexBytes());
+        return report;
+    }
+}
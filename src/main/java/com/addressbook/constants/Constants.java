@@ -7,5 +7,38 @@ public class Constants {
         public static final String UPDATE_CONTACT = "/update";
         public static final String DELETE_CONTACT = "/delete";
         public static final String SEARCH_CONTACT = "/search";
+        public static final String SEARCH_CONTACT_STREAM = "/search/stream";
+        public static final String IMPORT_CONTACTS = "/import";
+        public static final String AUTOCOMPLETE = "/autocomplete";
+        public static final String CHANGES = "/changes";
+        public static final String CHANGES_STREAM = "/changes/stream";
+    }
+
+    public static class Profiles {
+        // Serves the API from ReactiveContactController on WebFlux instead of ContactController on Spring MVC.
+        public static final String REACTIVE = "reactive";
+    }
+
+    public static class Import {
+        public static final String TEXT_CSV = "text/csv";
+    }
+
+    public static class Search {
+        public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+        public static final int DEFAULT_PAGE_SIZE = 100;
+        // Larger page requests get this many and a cursor for the rest.
+        public static final int MAX_PAGE_SIZE = 10000;
+        public static final int DEFAULT_COMPLETIONS = 10;
+    }
+
+    public static class Changes {
+        public static final int DEFAULT_LIMIT = 1000;
+        // Server-sent events: a change carries its sequence number as the event id, which EventSource sends
+        // back in Last-Event-ID when it reconnects.
+        public static final String CHANGE_EVENT = "change";
+        public static final String RESYNC_EVENT = "resync";
+        public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+        // An idle stream sends a comment this often so that a closed connection is noticed.
+        public static final long HEARTBEAT_MILLIS = 15_000;
     }
 }
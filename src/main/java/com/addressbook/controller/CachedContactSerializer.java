@@ -0,0 +1,94 @@
+package com.addressbook.controller;
+
+import com.addressbook.model.Contact;
+import com.addressbook.model.JsonFragment;
+import com.addressbook.model.JsonFragmentCache;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link Contact} read from the repository by copying the UTF-8 JSON cached on its stored version,
+ * encoding it with the regular bean serializer only the first time that version is written. Contacts without a
+ * cache, binary formats and pretty-printed output go through the bean serializer every time.
+ */
+class CachedContactSerializer extends StdSerializer<Contact> implements ContextualSerializer, ResolvableSerializer {
+
+    private final JsonSerializer<Object> beanSerializer;
+
+    CachedContactSerializer(JsonSerializer<Object> beanSerializer) {
+        super(Contact.class);
+        this.beanSerializer = beanSerializer;
+    }
+
+    /** Wraps the serializer Jackson builds for {@link Contact}, so its settings still decide the encoding. */
+    static Module module() {
+        SimpleModule module = new SimpleModule("CachedContactJson");
+        module.setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription description,
+                                                      JsonSerializer<?> serializer) {
+                return description.getBeanClass() == Contact.class
+                        ? new CachedContactSerializer((JsonSerializer<Object>) serializer)
+                        : serializer;
+            }
+        });
+        return module;
+    }
+
+    @Override
+    public void serialize(Contact contact, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        JsonFragmentCache cache = contact.jsonCache();
+        if (cache == null || !(generator instanceof UTF8JsonGenerator) || generator.getPrettyPrinter() != null
+                || generator.getCodec() == null) {
+            beanSerializer.serialize(contact, generator, provider);
+            return;
+        }
+        JsonFragment fragment = cache.getJsonFragment();
+        if (fragment == null) {
+            ByteArrayBuilder bytes = new ByteArrayBuilder();
+            try (JsonGenerator fragmentGenerator = generator.getCodec().getFactory().createGenerator(bytes)) {
+                beanSerializer.serialize(contact, fragmentGenerator, provider);
+            }
+            fragment = new JsonFragment(bytes.toByteArray());
+            cache.setJsonFragment(fragment);
+        }
+        generator.writeRawValue(fragment);
+    }
+
+    @Override
+    public void serializeWithType(Contact contact, JsonGenerator generator, SerializerProvider provider,
+                                  TypeSerializer typeSerializer) throws IOException {
+        beanSerializer.serializeWithType(contact, generator, provider, typeSerializer);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property) throws JsonMappingException {
+        JsonSerializer<?> contextual = provider.handlePrimaryContextualization(beanSerializer, property);
+        return contextual == beanSerializer ? this : new CachedContactSerializer((JsonSerializer<Object>) contextual);
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        if (beanSerializer instanceof ResolvableSerializer) {
+            ((ResolvableSerializer) beanSerializer).resolve(provider);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.addressbook.controller;
+
+import com.addressbook.constants.Constants;
+import com.addressbook.model.ContactChange;
+import com.addressbook.model.ContactChanges;
+import com.addressbook.service.ContactService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent event subscriptions to the change feed on Spring MVC. A subscription lives until the client goes
+ * away, so it never times out and its wait loop runs on a pool of its own, capped at
+ * {@code addressbook.changes.max-streams}, rather than holding a thread of the executor other streamed responses
+ * share. Subscribers beyond the cap are turned away.
+ */
+@Component
+@Profile("!" + Constants.Profiles.REACTIVE)
+public class ChangeEventStreams {
+
+    @Autowired
+    private ContactService contactService;
+
+    private final ThreadPoolExecutor executor;
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeEventStreams.class);
+
+    public ChangeEventStreams(@Value("${addressbook.changes.max-streams:256}") int maxStreams) {
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(0, maxStreams, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "change-stream-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Streams every change after {@code since}, then each new one as it happens.
+     *
+     * @throws RejectedExecutionException if {@code addressbook.changes.max-streams} subscriptions are open
+     */
+    public SseEmitter open(long since) {
+        SseEmitter emitter = new SseEmitter(-1L);
+        AtomicBoolean closed = new AtomicBoolean();
+        emitter.onCompletion(() -> closed.set(true));
+        emitter.onError(e -> closed.set(true));
+        // Only happens when the server is stopping.
+        emitter.onTimeout(() -> {
+            closed.set(true);
+            emitter.complete();
+        });
+        executor.execute(() -> stream(emitter, closed, since));
+        return emitter;
+    }
+
+    private void stream(SseEmitter emitter, AtomicBoolean closed, long since) {
+        long position = since;
+        try {
+            // Sends the response headers, so the client knows it is subscribed before the first change.
+            emitter.send(SseEmitter.event().comment(""));
+            while (!closed.get()) {
+                ContactChanges changes = contactService.awaitChanges(position, Constants.Changes.DEFAULT_LIMIT,
+                        Constants.Changes.HEARTBEAT_MILLIS);
+                if (changes.isResyncRequired()) {
+                    emitter.send(SseEmitter.event().name(Constants.Changes.RESYNC_EVENT).data(changes));
+                    emitter.complete();
+                    return;
+                }
+                if (changes.getChanges().isEmpty()) {
+                    emitter.send(SseEmitter.event().comment(""));
+                }
+                for (ContactChange change : changes.getChanges()) {
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(change.getSequence()))
+                            .name(Constants.Changes.CHANGE_EVENT)
+                            .data(change));
+                }
+                position = changes.getNext();
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Change stream closed by the client: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
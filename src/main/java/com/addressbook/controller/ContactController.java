@@ -2,28 +2,55 @@ package com.addressbook.controller;
 
 import com.addressbook.constants.Constants;
 import com.addressbook.model.Contact;
+import com.addressbook.model.ContactChanges;
+import com.addressbook.model.ContactPage;
 import com.addressbook.model.ContactRequest;
 import com.addressbook.model.ContactUpdateRequest;
+import com.addressbook.model.ImportReport;
+import com.addressbook.model.SearchMode;
 import com.addressbook.model.SearchRequest;
+import com.addressbook.service.ContactImportService;
 import com.addressbook.service.ContactService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 @RestController
+@Profile("!" + Constants.Profiles.REACTIVE)
 public class ContactController {
 
     @Autowired
     private ContactService contactService;
 
+    @Autowired
+    private ContactImportService contactImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ChangeEventStreams changeEventStreams;
+
     private static final Logger logger = LoggerFactory.getLogger(ContactController.class);
+    // Flush the first match right away, then every so many, so clients see results without per-line writes.
+    private static final int STREAM_FLUSH_INTERVAL = 256;
 
     @PostMapping(Constants.RequestMapping.CREATE_CONTACT)
     public ResponseEntity<List<Contact>> createContacts(@RequestBody List<ContactRequest> contactRequests) {
@@ -32,6 +59,18 @@ public class ContactController {
         return new ResponseEntity<>(createdContacts, HttpStatus.CREATED);
     }
 
+    @PostMapping(value = Constants.RequestMapping.IMPORT_CONTACTS, consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportReport> importNdjsonContacts(InputStream body) throws IOException {
+        logger.info("Importing contacts from NDJSON upload");
+        return new ResponseEntity<>(contactImportService.importNdjson(body), HttpStatus.OK);
+    }
+
+    @PostMapping(value = Constants.RequestMapping.IMPORT_CONTACTS, consumes = Constants.Import.TEXT_CSV)
+    public ResponseEntity<ImportReport> importCsvContacts(InputStream body) throws IOException {
+        logger.info("Importing contacts from CSV upload");
+        return new ResponseEntity<>(contactImportService.importCsv(body), HttpStatus.OK);
+    }
+
     @PutMapping(Constants.RequestMapping.UPDATE_CONTACT)
     public ResponseEntity<List<Contact>> updateContacts(@RequestBody List<ContactUpdateRequest> contactUpdateRequests) {
         logger.info("Updating contacts from {}", contactUpdateRequests);
@@ -49,7 +88,92 @@ public class ContactController {
     @PostMapping(Constants.RequestMapping.SEARCH_CONTACT)
     public ResponseEntity<List<Contact>> searchContacts(@RequestBody SearchRequest searchRequest) {
         logger.info("Searching contacts from {}", searchRequest);
-        List<Contact> foundContacts = contactService.searchContacts(searchRequest.getQuery());
-        return new ResponseEntity<>(foundContacts, HttpStatus.OK);
+        if (searchRequest.getMode() != null && searchRequest.getMode() != SearchMode.CONTAINS) {
+            int limit = searchRequest.getLimit() != null ? searchRequest.getLimit()
+                    : searchRequest.getMode() == SearchMode.RANKED ? Constants.Search.DEFAULT_PAGE_SIZE : Integer.MAX_VALUE;
+            List<Contact> foundContacts = contactService.searchContacts(searchRequest.getQuery(), searchRequest.getMode(), limit);
+            return new ResponseEntity<>(foundContacts, HttpStatus.OK);
+        }
+        if (searchRequest.getLimit() == null && searchRequest.getCursor() == null) {
+            List<Contact> foundContacts = contactService.searchContacts(searchRequest.getQuery());
+            return new ResponseEntity<>(foundContacts, HttpStatus.OK);
+        }
+
+        int limit = searchRequest.getLimit() != null ? searchRequest.getLimit() : Constants.Search.DEFAULT_PAGE_SIZE;
+        ContactPage page = contactService.searchContacts(searchRequest.getQuery(), searchRequest.getCursor(), limit);
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextCursor() != null) {
+            headers.set(Constants.Search.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return new ResponseEntity<>(page.getContacts(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Names, name words and emails starting with {@code prefix}, most common first, for typeahead. Called on
+     * every keystroke, so it logs at debug level only.
+     */
+    @GetMapping(Constants.RequestMapping.AUTOCOMPLETE)
+    public ResponseEntity<List<String>> autocomplete(@RequestParam String prefix,
+                                                     @RequestParam(defaultValue = "" + Constants.Search.DEFAULT_COMPLETIONS) int limit) {
+        logger.debug("Completing prefix {}", prefix);
+        return new ResponseEntity<>(contactService.autocomplete(prefix, limit), HttpStatus.OK);
+    }
+
+    /**
+     * Writes matches as newline-delimited JSON while they are found, so neither the results nor the response
+     * body are ever held in memory as a whole.
+     */
+    @PostMapping(value = Constants.RequestMapping.SEARCH_CONTACT_STREAM, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSearchContacts(@RequestBody SearchRequest searchRequest) {
+        logger.info("Streaming search of contacts from {}", searchRequest);
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.setRootValueSeparator(null);
+            int[] written = {0};
+            try {
+                contactService.streamSearchContacts(searchRequest.getQuery(), contact -> {
+                    try {
+                        generator.writeObject(contact);
+                        generator.writeRaw('\n');
+                        if (written[0]++ % STREAM_FLUSH_INTERVAL == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Creates, updates and deletes numbered after {@code since}, oldest first. Without {@code since} the page is
+     * empty and only tells the client where the feed is now. 410 Gone when those changes are no longer known,
+     * with the sequence number to follow the feed from once every contact has been reloaded.
+     */
+    @GetMapping(Constants.RequestMapping.CHANGES)
+    public ResponseEntity<ContactChanges> changes(@RequestParam(required = false) Long since,
+                                                  @RequestParam(defaultValue = "" + Constants.Changes.DEFAULT_LIMIT) int limit) {
+        logger.debug("Fetching changes since {}", since);
+        ContactChanges changes = contactService.changesSince(since, limit);
+        return new ResponseEntity<>(changes, changes.isResyncRequired() ? HttpStatus.GONE : HttpStatus.OK);
+    }
+
+    /**
+     * Server-sent events for every change after {@code Last-Event-ID}, else {@code since}, else from now on,
+     * followed by each new change as it happens. A client that falls too far behind gets a {@code resync} event
+     * and the stream ends.
+     */
+    @GetMapping(value = Constants.RequestMapping.CHANGES_STREAM, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = Constants.Changes.LAST_EVENT_ID_HEADER, required = false) Long lastEventId) {
+        long from = lastEventId != null ? lastEventId : since != null ? since : contactService.lastChangeSequence();
+        logger.info("Streaming changes since {}", from);
+        return changeEventStreams.open(from);
     }
 }
@@ -0,0 +1,258 @@
+package com.addressbook.controller;
+
+import com.addressbook.constants.Constants;
+import com.addressbook.model.Contact;
+import com.addressbook.model.ContactChange;
+import com.addressbook.model.ContactChanges;
+import com.addressbook.model.ContactPage;
+import com.addressbook.model.ContactRequest;
+import com.addressbook.model.ContactUpdateRequest;
+import com.addressbook.model.SearchMode;
+import com.addressbook.model.SearchRequest;
+import com.addressbook.service.ContactService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * WebFlux variant of {@link ContactController} for the {@code reactive} profile, with the same request and
+ * response bodies. Service calls may block on locks and write-ahead log commits, so they run on the
+ * bounded-elastic scheduler and never on an event-loop thread.
+ * <p>
+ * Unlike {@code /create} on Spring MVC, the body is decoded one contact at a time and created in batches of
+ * {@code addressbook.import.batch-size}, so a failure in a later batch leaves the earlier ones created. The
+ * response is only sent once every batch is in, so such a failure still gets its own status, not a 201.
+ */
+@RestController
+@Profile(Constants.Profiles.REACTIVE)
+public class ReactiveContactController {
+
+    @Autowired
+    private ContactService contactService;
+
+    @Value("${addressbook.import.batch-size:1000}")
+    private int batchSize = 1000;
+
+    // Change stream waits block for up to a heartbeat each, so they get threads of their own rather than
+    // starving the shared bounded-elastic pool every other request uses.
+    private Scheduler changeStreamScheduler = Schedulers.newBoundedElastic(256, Integer.MAX_VALUE, "change-stream");
+
+    // A streaming search holds its thread until the client has read every match, however slowly it reads.
+    private Scheduler searchStreamScheduler = Schedulers.newBoundedElastic(256, Integer.MAX_VALUE, "search-stream");
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveContactController.class);
+
+    @Value("${addressbook.changes.max-streams:256}")
+    public void setMaxChangeStreams(int maxStreams) {
+        changeStreamScheduler.dispose();
+        changeStreamScheduler = Schedulers.newBoundedElastic(maxStreams, Integer.MAX_VALUE, "change-stream");
+    }
+
+    @Value("${addressbook.search.max-streams:256}")
+    public void setMaxSearchStreams(int maxStreams) {
+        searchStreamScheduler.dispose();
+        searchStreamScheduler = Schedulers.newBoundedElastic(maxStreams, Integer.MAX_VALUE, "search-stream");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        changeStreamScheduler.dispose();
+        searchStreamScheduler.dispose();
+    }
+
+    @PostMapping(Constants.RequestMapping.CREATE_CONTACT)
+    public Mono<ResponseEntity<List<Contact>>> createContacts(@RequestBody Flux<ContactRequest> contactRequests) {
+        return contactRequests
+                .buffer(batchSize)
+                .concatMap(batch -> {
+                    logger.info("Creating {} contacts", batch.size());
+                    return blocking(() -> contactService.createContacts(batch));
+                })
+                .concatMapIterable(createdContacts -> createdContacts)
+                .collectList()
+                .map(createdContacts -> new ResponseEntity<>(createdContacts, HttpStatus.CREATED));
+    }
+
+    @PutMapping(Constants.RequestMapping.UPDATE_CONTACT)
+    public Mono<List<Contact>> updateContacts(@RequestBody Mono<List<ContactUpdateRequest>> contactUpdateRequests) {
+        return contactUpdateRequests.flatMap(requests -> {
+            logger.info("Updating contacts from {}", requests);
+            return blocking(() -> contactService.updateContacts(requests));
+        });
+    }
+
+    @DeleteMapping(Constants.RequestMapping.DELETE_CONTACT)
+    public Mono<Map<String, Integer>> deleteContacts(@RequestBody Mono<List<String>> contactIds) {
+        return contactIds.flatMap(ids -> {
+            logger.info("Deleting contacts from {}", ids);
+            return blocking(() -> Collections.singletonMap("deleted", contactService.deleteContacts(ids)));
+        });
+    }
+
+    /**
+     * Goes through the same cached service methods as on Spring MVC; {@code /search/stream} is the endpoint
+     * that streams matches as they are found.
+     */
+    @PostMapping(Constants.RequestMapping.SEARCH_CONTACT)
+    public Mono<ResponseEntity<Flux<Contact>>> searchContacts(@RequestBody Mono<SearchRequest> searchRequest) {
+        return searchRequest.flatMap(request -> {
+            logger.info("Searching contacts from {}", request);
+            if (request.getMode() != null && request.getMode() != SearchMode.CONTAINS) {
+                int limit = request.getLimit() != null ? request.getLimit()
+                        : request.getMode() == SearchMode.RANKED ? Constants.Search.DEFAULT_PAGE_SIZE : Integer.MAX_VALUE;
+                return blocking(() -> contactService.searchContacts(request.getQuery(), request.getMode(), limit))
+                        .map(contacts -> ResponseEntity.ok(Flux.fromIterable(contacts)));
+            }
+            if (request.getLimit() == null && request.getCursor() == null) {
+                return blocking(() -> contactService.searchContacts(request.getQuery()))
+                        .map(contacts -> ResponseEntity.ok(Flux.fromIterable(contacts)));
+            }
+
+            int limit = request.getLimit() != null ? request.getLimit() : Constants.Search.DEFAULT_PAGE_SIZE;
+            Mono<ContactPage> page = blocking(() -> contactService.searchContacts(request.getQuery(), request.getCursor(), limit));
+            return page.map(ReactiveContactController::pageResponse);
+        });
+    }
+
+    @PostMapping(value = Constants.RequestMapping.SEARCH_CONTACT_STREAM, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Contact> streamSearchContacts(@RequestBody Mono<SearchRequest> searchRequest) {
+        return searchRequest.flatMapMany(request -> {
+            logger.info("Streaming search of contacts from {}", request);
+            return streamSearch(request.getQuery());
+        });
+    }
+
+    @GetMapping(Constants.RequestMapping.CHANGES)
+    public Mono<ResponseEntity<ContactChanges>> changes(@RequestParam(required = false) Long since,
+                                                        @RequestParam(defaultValue = "" + Constants.Changes.DEFAULT_LIMIT) int limit) {
+        logger.debug("Fetching changes since {}", since);
+        return Mono.fromCallable(() -> contactService.changesSince(since, limit))
+                .map(changes -> ResponseEntity.status(changes.isResyncRequired() ? HttpStatus.GONE : HttpStatus.OK).body(changes));
+    }
+
+    /**
+     * Each wait for new changes blocks a change-stream thread for at most the heartbeat interval; with more
+     * than {@code addressbook.changes.max-streams} streams waiting, the rest queue for a thread.
+     */
+    @GetMapping(value = Constants.RequestMapping.CHANGES_STREAM, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamChanges(
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = Constants.Changes.LAST_EVENT_ID_HEADER, required = false) Long lastEventId) {
+        return Mono.fromCallable(() -> lastEventId != null ? lastEventId : since != null ? since : contactService.lastChangeSequence())
+                .flatMapMany(from -> {
+                    logger.info("Streaming changes since {}", from);
+                    return awaitChanges(from).expand(changes -> changes.isResyncRequired()
+                            ? Mono.empty()
+                            : awaitChanges(changes.getNext()));
+                })
+                .concatMapIterable(ReactiveContactController::events)
+                .startWith(ServerSentEvent.builder().comment("").build());
+    }
+
+    private Mono<ContactChanges> awaitChanges(long since) {
+        return Mono.fromCallable(() -> contactService.awaitChanges(since, Constants.Changes.DEFAULT_LIMIT,
+                Constants.Changes.HEARTBEAT_MILLIS)).subscribeOn(changeStreamScheduler);
+    }
+
+    private static List<ServerSentEvent<Object>> events(ContactChanges changes) {
+        if (changes.isResyncRequired()) {
+            return Collections.singletonList(ServerSentEvent.builder((Object) changes).event(Constants.Changes.RESYNC_EVENT).build());
+        }
+        if (changes.getChanges().isEmpty()) {
+            return Collections.singletonList(ServerSentEvent.builder().comment("").build());
+        }
+        List<ServerSentEvent<Object>> events = new ArrayList<>(changes.getChanges().size());
+        for (ContactChange change : changes.getChanges()) {
+            events.add(ServerSentEvent.builder((Object) change)
+                    .id(Long.toString(change.getSequence()))
+                    .event(Constants.Changes.CHANGE_EVENT)
+                    .build());
+        }
+        return events;
+    }
+
+    private static ResponseEntity<Flux<Contact>> pageResponse(ContactPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(Constants.Search.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(Flux.fromIterable(page.getContacts()));
+    }
+
+    /**
+     * Runs the streaming search on a search-stream thread that waits, before handing over each match, until
+     * the subscriber has requested more. The scan is abandoned when the subscriber cancels. With more than
+     * {@code addressbook.search.max-streams} scans running, the rest queue for a thread. Requests are passed
+     * on from the subscriber's own thread, since the scan's thread is the one waiting for them.
+     */
+    private Flux<Contact> streamSearch(String query) {
+        return Flux.<Contact>create(sink -> {
+            ReentrantLock lock = new ReentrantLock();
+            Condition demand = lock.newCondition();
+            Runnable signal = () -> {
+                lock.lock();
+                try {
+                    demand.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            };
+            sink.onRequest(requested -> signal.run());
+            sink.onCancel(signal::run);
+            try {
+                contactService.streamSearchContacts(query, contact -> {
+                    awaitDemand(sink, lock, demand);
+                    sink.next(contact);
+                });
+                sink.complete();
+            } catch (CancellationException e) {
+                logger.debug("Streaming search for {} cancelled by the client", query);
+            } catch (RuntimeException e) {
+                sink.error(e);
+            }
+        }).subscribeOn(searchStreamScheduler, false);
+    }
+
+    private static void awaitDemand(FluxSink<Contact> sink, ReentrantLock lock, Condition demand) {
+        lock.lock();
+        try {
+            while (sink.requestedFromDownstream() == 0 && !sink.isCancelled()) {
+                demand.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the client");
+        } finally {
+            lock.unlock();
+        }
+        if (sink.isCancelled()) {
+            throw new CancellationException("Client cancelled the search");
+        }
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,21 @@
+package com.addressbook.controller;
+
+import com.addressbook.constants.Constants;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Serves the {@code reactive} profile from Reactor Netty. Spring Boot would otherwise pick the servlet
+ * container that Spring MVC puts on the classpath and run WebFlux on top of it.
+ */
+@Configuration
+@Profile(Constants.Profiles.REACTIVE)
+public class ReactiveServerConfiguration {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,38 @@
+package com.addressbook.controller;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * How contacts go over the wire. JSON responses splice the encoding cached on each stored contact version
+ * ({@link CachedContactSerializer}).
+ * <p>
+ * Binary alternatives to JSON for the same request and response bodies: Smile
+ * ({@code application/x-jackson-smile}) and CBOR ({@code application/cbor}), chosen by {@code Content-Type} and
+ * {@code Accept}. Both are built from the application's Jackson settings so they encode exactly what JSON does.
+ * JSON is still registered ahead of them and stays the default.
+ */
+@Configuration
+public class WireFormatConfiguration {
+
+    @Bean
+    public Module cachedContactJsonModule() {
+        return CachedContactSerializer.module();
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
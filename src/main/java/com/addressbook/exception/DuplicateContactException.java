@@ -0,0 +1,11 @@
+package com.addressbook.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class DuplicateContactException extends RuntimeException {
+    public DuplicateContactException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.addressbook.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public enum ChangeType {
+    @JsonProperty("created") CREATED,
+    @JsonProperty("updated") UPDATED,
+    @JsonProperty("deleted") DELETED
+}
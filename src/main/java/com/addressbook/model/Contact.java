@@ -1,15 +1,59 @@
 package com.addressbook.model;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 public class Contact {
     private String id;
     private String name;
     private String phone;
     private String email;
+
+    // Cached JSON of the stored version this contact was read from; any setter detaches it.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient JsonFragmentCache jsonCache;
+
+    public Contact(String id, String name, String phone, String email) {
+        this.id = id;
+        this.name = name;
+        this.phone = phone;
+        this.email = email;
+    }
+
+    public Contact(String id, String name, String phone, String email, JsonFragmentCache jsonCache) {
+        this(id, name, phone, email);
+        this.jsonCache = jsonCache;
+    }
+
+    public JsonFragmentCache jsonCache() {
+        return jsonCache;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+        this.jsonCache = null;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+        this.jsonCache = null;
+    }
+
+    public void setPhone(String phone) {
+        this.phone = phone;
+        this.jsonCache = null;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+        this.jsonCache = null;
+    }
 }
@@ -0,0 +1,16 @@
+package com.addressbook.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ContactChange {
+    private long sequence;
+    private ChangeType type;
+    private String id;
+    // The contact as of this change, or null if it was deleted.
+    private Contact contact;
+}
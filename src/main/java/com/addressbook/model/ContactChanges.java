@@ -0,0 +1,19 @@
+package com.addressbook.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ContactChanges {
+    private List<ContactChange> changes;
+    // Sequence number to ask for changes after next time.
+    private long next;
+    // The changes after the requested sequence number are no longer retained: reload every contact, then
+    // follow the feed from next.
+    private boolean resyncRequired;
+}
@@ -0,0 +1,84 @@
+package com.addressbook.model;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Contact ids are canonical lower-case UUID strings ({@code 8-4-4-4-12} hex digits). Internally they are
+ * handled as two {@code long}s; ids in any other form supplied by clients are kept as plain strings.
+ */
+public final class ContactId {
+
+    private static final int LENGTH = 36;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private ContactId() {
+    }
+
+    /**
+     * Time-ordered UUIDv7: 48 bits of Unix milliseconds, the version, 74 random bits and the variant. The
+     * random bits come from the calling thread's {@link ThreadLocalRandom}, so concurrent callers never contend.
+     */
+    public static String newId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long high = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        long low = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return toString(high, low);
+    }
+
+    public static boolean isCanonical(String id) {
+        if (id == null || id.length() != LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < LENGTH; i++) {
+            char c = id.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Most significant 64 bits of a canonical id. */
+    public static long high(String id) {
+        return (parse(id, 0, 8) << 32) | (parse(id, 9, 13) << 16) | parse(id, 14, 18);
+    }
+
+    /** Least significant 64 bits of a canonical id. */
+    public static long low(String id) {
+        return (parse(id, 19, 23) << 48) | parse(id, 24, 36);
+    }
+
+    public static String toString(long high, long low) {
+        char[] chars = new char[LENGTH];
+        format(high >>> 32, chars, 0, 8);
+        chars[8] = '-';
+        format(high >>> 16, chars, 9, 4);
+        chars[13] = '-';
+        format(high, chars, 14, 4);
+        chars[18] = '-';
+        format(low >>> 48, chars, 19, 4);
+        chars[23] = '-';
+        format(low, chars, 24, 12);
+        return new String(chars);
+    }
+
+    private static long parse(String id, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            char c = id.charAt(i);
+            value = (value << 4) | (c <= '9' ? c - '0' : c - 'a' + 10);
+        }
+        return value;
+    }
+
+    private static void format(long value, char[] target, int offset, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            target[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
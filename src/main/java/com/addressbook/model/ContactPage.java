@@ -0,0 +1,16 @@
+package com.addressbook.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ContactPage {
+    private List<Contact> contacts;
+    // Id of the last contact in this page, or null if there are no further matches.
+    private String nextCursor;
+}
@@ -0,0 +1,26 @@
+package com.addressbook.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportReport {
+    private long created;
+    private long rejected;
+    // Only the first errors are listed when there are many; rejected always counts all of them.
+    private List<ImportError> errors = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ImportError {
+        private long line;
+        private String message;
+    }
+}
@@ -0,0 +1,12 @@
+package com.addressbook.model;
+
+/**
+ * Keeps the JSON encoding of one stored contact version once it has been computed, for every {@link Contact}
+ * read from that version. A new version starts without one, so a save invalidates it.
+ */
+public interface JsonFragmentCache {
+
+    JsonFragment getJsonFragment();
+
+    void setJsonFragment(JsonFragment fragment);
+}
@@ -0,0 +1,20 @@
+package com.addressbook.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public enum SearchMode {
+    // Name, phone or email contains the query (the default).
+    @JsonProperty("contains") CONTAINS,
+    // Email equals the query, ignoring case.
+    @JsonProperty("email") EMAIL,
+    // Phone has the same digits as the query.
+    @JsonProperty("phone") PHONE,
+    // Phone digits start with the query's digits, country code included.
+    @JsonProperty("phone-prefix") PHONE_PREFIX,
+    // Phone digits end with the query's digits.
+    @JsonProperty("phone-suffix") PHONE_SUFFIX,
+    // Every word of the query is within a small edit distance of a word of the name.
+    @JsonProperty("fuzzy") FUZZY,
+    // Same matches as contains, most relevant first, cut to the limit.
+    @JsonProperty("ranked") RANKED
+}
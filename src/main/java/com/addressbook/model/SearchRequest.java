@@ -9,4 +9,20 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class SearchRequest {
     private String query;
+    // Maximum number of contacts to return; all matches if null.
+    private Integer limit;
+    // Next cursor returned with the previous page; null for the first page.
+    private String cursor;
+    // How the query is matched; contains if null.
+    private SearchMode mode;
+
+    public SearchRequest(String query) {
+        this.query = query;
+    }
+
+    public SearchRequest(String query, Integer limit, String cursor) {
+        this.query = query;
+        this.limit = limit;
+        this.cursor = cursor;
+    }
 }
@@ -0,0 +1,113 @@
+package com.addressbook.persistence;
+
+import com.addressbook.repository.ContactSnapshot;
+import com.addressbook.repository.InMemoryContactRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Recovers the repository on startup from the latest snapshot plus the write-ahead log records after it,
+ * then takes periodic snapshots and drops the log segments they make redundant. Either the log or the
+ * snapshot may be absent.
+ */
+public class ContactPersistence implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContactPersistence.class);
+
+    private final InMemoryContactRepository repository;
+    private final WriteAheadLog writeAheadLog;
+    private final Path snapshotPath;
+    private final long snapshotIntervalMillis;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private ScheduledExecutorService scheduler;
+
+    public ContactPersistence(InMemoryContactRepository repository, WriteAheadLog writeAheadLog, Path snapshotPath,
+                              long snapshotIntervalMillis) {
+        this.repository = repository;
+        this.writeAheadLog = writeAheadLog;
+        this.snapshotPath = snapshotPath;
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+    }
+
+    public void start() throws IOException {
+        long position = 0;
+        if (snapshotPath != null && Files.exists(snapshotPath)) {
+            long started = System.nanoTime();
+            SnapshotFile.Contents contents = SnapshotFile.read(snapshotPath);
+            repository.restoreAll(contents.getContacts());
+            position = contents.getPosition();
+            logger.info("Loaded {} contacts from snapshot {} in {} ms", contents.getContacts().size(), snapshotPath,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+        if (writeAheadLog != null) {
+            writeAheadLog.replay(position, repository::save, repository::deleteById);
+            repository.setJournal(writeAheadLog);
+        }
+        if (snapshotPath != null && snapshotIntervalMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "contact-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::takeScheduledSnapshot, snapshotIntervalMillis,
+                    snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes a snapshot while writes keep running. Returns the journal position it covers.
+     */
+    public long takeSnapshot() throws IOException {
+        if (snapshotPath == null) {
+            throw new IllegalStateException("Snapshots are not enabled");
+        }
+        snapshotLock.lock();
+        try {
+            long started = System.nanoTime();
+            ContactSnapshot snapshot = repository.snapshot();
+            if (writeAheadLog != null) {
+                writeAheadLog.rollover();
+            }
+            SnapshotFile.write(snapshotPath, snapshot);
+            int deletedSegments = writeAheadLog == null ? 0 : writeAheadLog.deleteSegmentsThrough(snapshot.getPosition());
+            logger.info("Wrote snapshot of {} contacts at position {} in {} ms, dropped {} log segments",
+                    snapshot.size(), snapshot.getPosition(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                    deletedSegments);
+            return snapshot.getPosition();
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (snapshotPath != null && writeAheadLog == null) {
+            takeSnapshot();
+        }
+    }
+
+    private void takeScheduledSnapshot() {
+        try {
+            takeSnapshot();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to write snapshot {}", snapshotPath, e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.addressbook.persistence;
+
+public enum DurabilityMode {
+    /** Every write waits until its group commit has been fsynced. */
+    SYNC,
+    /** Writes wait until they reach the OS; the log is fsynced at a fixed interval. */
+    INTERVAL,
+    /** Writes wait until they reach the OS, which decides when to flush them to disk. */
+    OS
+}
@@ -0,0 +1,35 @@
+package com.addressbook.persistence;
+
+import com.addressbook.repository.InMemoryContactRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Configuration
+public class PersistenceConfiguration {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "addressbook.wal.enabled", havingValue = "true")
+    public WriteAheadLog writeAheadLog(@Value("${addressbook.wal.dir:data/wal}") String directory,
+                                       @Value("${addressbook.wal.durability:interval}") String durability,
+                                       @Value("${addressbook.wal.sync-interval-ms:50}") long syncIntervalMillis) throws IOException {
+        return WriteAheadLog.open(Paths.get(directory), DurabilityMode.valueOf(durability.toUpperCase()), syncIntervalMillis);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnExpression("${addressbook.wal.enabled:false} or ${addressbook.snapshot.enabled:false}")
+    public ContactPersistence contactPersistence(InMemoryContactRepository repository,
+                                                 ObjectProvider<WriteAheadLog> writeAheadLog,
+                                                 @Value("${addressbook.snapshot.enabled:false}") boolean snapshotEnabled,
+                                                 @Value("${addressbook.snapshot.path:data/contacts.snapshot}") String snapshotPath,
+                                                 @Value("${addressbook.snapshot.interval-ms:300000}") long snapshotIntervalMillis) {
+        return new ContactPersistence(repository, writeAheadLog.getIfAvailable(),
+                snapshotEnabled ? Paths.get(snapshotPath) : null, snapshotIntervalMillis);
+    }
+}
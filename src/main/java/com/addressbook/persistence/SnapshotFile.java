@@ -0,0 +1,188 @@
+package com.addressbook.persistence;
+
+import com.addressbook.model.Contact;
+import com.addressbook.repository.ContactSnapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Columnar snapshot of all contacts.
+ * <p>
+ * Layout: {@code int magic, int format version, long journal position, int contact count}, then one block
+ * per column (id, name, phone, email) made of {@code int[count]} UTF-8 byte lengths (-1 for null) followed by
+ * the concatenated bytes. Loading maps the file instead of streaming it and decodes each column in parallel
+ * chunks, so startup time is bounded by memory bandwidth rather than by the number of writes ever made.
+ */
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x41425331;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 20;
+    private static final int COLUMNS = 4;
+    private static final int ROWS_PER_CHUNK = 16 * 1024;
+
+    private SnapshotFile() {
+    }
+
+    public static class Contents {
+        private final long position;
+        private final List<Contact> contacts;
+
+        Contents(long position, List<Contact> contacts) {
+            this.position = position;
+            this.contacts = contacts;
+        }
+
+        public long getPosition() {
+            return position;
+        }
+
+        public List<Contact> getContacts() {
+            return contacts;
+        }
+    }
+
+    /**
+     * Writes the snapshot to a temporary file, forces it to disk and atomically moves it over {@code path}.
+     */
+    public static void write(Path path, ContactSnapshot snapshot) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        int count = snapshot.size();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(snapshot.getPosition());
+            out.writeInt(count);
+            for (int column = 0; column < COLUMNS; column++) {
+                for (int row = 0; row < count; row++) {
+                    String value = field(snapshot, row, column);
+                    out.writeInt(value == null ? -1 : utf8Length(value));
+                }
+                for (int row = 0; row < count; row++) {
+                    String value = field(snapshot, row, column);
+                    if (value != null) {
+                        out.write(value.getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static Contents read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+                throw new IOException("Not a contact snapshot: " + path);
+            }
+            long position = header.getLong();
+            int count = header.getInt();
+
+            String[][] columns = new String[COLUMNS][];
+            long offset = HEADER_BYTES;
+            for (int column = 0; column < COLUMNS; column++) {
+                IntBuffer lengths = channel.map(FileChannel.MapMode.READ_ONLY, offset, (long) count * Integer.BYTES)
+                        .asIntBuffer();
+                offset += (long) count * Integer.BYTES;
+
+                int chunks = (count + ROWS_PER_CHUNK - 1) / ROWS_PER_CHUNK;
+                long[] chunkOffsets = new long[chunks + 1];
+                for (int row = 0; row < count; row++) {
+                    if (row % ROWS_PER_CHUNK == 0) {
+                        chunkOffsets[row / ROWS_PER_CHUNK] = chunkOffsets[chunks];
+                    }
+                    chunkOffsets[chunks] += Math.max(0, lengths.get(row));
+                }
+                long dataBytes = chunkOffsets[chunks];
+                if (dataBytes > Integer.MAX_VALUE) {
+                    throw new IOException("Snapshot column larger than 2 GB cannot be mapped: " + path);
+                }
+                MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, offset, dataBytes);
+                offset += dataBytes;
+
+                String[] values = new String[count];
+                IntStream.range(0, chunks).parallel().forEach(chunk ->
+                        decodeChunk(data.duplicate(), lengths.duplicate(), (int) chunkOffsets[chunk], chunk, count, values));
+                columns[column] = values;
+            }
+
+            IntFunction<Contact> toContact = row -> new Contact(columns[0][row], columns[1][row], columns[2][row], columns[3][row]);
+            Contact[] contacts = IntStream.range(0, count).parallel().mapToObj(toContact).toArray(Contact[]::new);
+            return new Contents(position, Arrays.asList(contacts));
+        }
+    }
+
+    private static void decodeChunk(ByteBuffer data, IntBuffer lengths, int dataOffset, int chunk, int count, String[] values) {
+        int start = chunk * ROWS_PER_CHUNK;
+        int end = Math.min(count, start + ROWS_PER_CHUNK);
+        data.position(dataOffset);
+        byte[] scratch = new byte[256];
+        for (int row = start; row < end; row++) {
+            int length = lengths.get(row);
+            if (length < 0) {
+                continue;
+            }
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            data.get(scratch, 0, length);
+            values[row] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String field(ContactSnapshot snapshot, int row, int column) {
+        switch (column) {
+            case 0:
+                return snapshot.getId(row);
+            case 1:
+                return snapshot.getName(row);
+            case 2:
+                return snapshot.getPhone(row);
+            default:
+                return snapshot.getEmail(row);
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // String.getBytes replaces an unpaired surrogate with '?'
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
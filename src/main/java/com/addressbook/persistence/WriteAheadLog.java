@@ -0,0 +1,461 @@
+package com.addressbook.persistence;
+
+import com.addressbook.model.Contact;
+import com.addressbook.repository.ContactJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of contact saves and deletes, split into segment files named after the position of
+ * their first record.
+ * <p>
+ * Each record is {@code [int payload length][int CRC32 of payload][payload]} where the payload is a type
+ * byte followed by the contact fields, each written as a varint of {@code length + 1} (0 for null) and
+ * the UTF-8 bytes. Appending only copies the encoded record into an in-memory buffer; a single writer
+ * thread drains everything appended since its last pass with one write and, depending on the
+ * {@link DurabilityMode}, one fsync, so concurrent writers share the cost of a commit.
+ * <p>
+ * Positions handed out by the log are record sequence numbers starting at 1 and keep increasing across
+ * segments, so a snapshot can name the last position it covers and older segments can be dropped.
+ */
+public class WriteAheadLog implements ContactJournal, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final byte SAVE = 1;
+    private static final byte DELETE = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("(\\d{20})\\.wal");
+
+    private final Path directory;
+    private final DurabilityMode mode;
+    private final long syncIntervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition committed = lock.newCondition();
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    private ByteBuffer spare = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    private long appendedPosition;
+    private long writtenPosition;
+    private long syncedPosition;
+    private boolean rolloverRequested;
+    private long rollovers;
+    private boolean closed;
+    private IOException failure;
+    private Thread writer;
+    // Only touched by the thread that replays the log and, after that, by the writer thread.
+    private FileChannel channel;
+
+    private WriteAheadLog(Path directory, DurabilityMode mode, long syncIntervalMillis) {
+        this.directory = directory;
+        this.mode = mode;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+    }
+
+    public static WriteAheadLog open(Path directory, DurabilityMode mode, long syncIntervalMillis) throws IOException {
+        Files.createDirectories(directory);
+        return new WriteAheadLog(directory, mode, syncIntervalMillis);
+    }
+
+    public long replay(Consumer<Contact> onSave, Consumer<String> onDelete) throws IOException {
+        return replay(0, onSave, onDelete);
+    }
+
+    /**
+     * Feeds every intact record after {@code afterPosition} to the given consumers in log order, truncates a
+     * torn tail left by a crash and starts accepting appends. Must be called exactly once, before any append.
+     */
+    public long replay(long afterPosition, Consumer<Contact> onSave, Consumer<String> onDelete) throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("Write-ahead log " + directory + " has already been replayed");
+        }
+        List<Long> bases = segmentBases();
+        long applied = 0;
+        long lastPosition = afterPosition;
+        for (int i = 0; i < bases.size(); i++) {
+            boolean last = i == bases.size() - 1;
+            FileChannel segment = FileChannel.open(segmentPath(bases.get(i)), StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            long position = bases.get(i) - 1;
+            long validBytes = 0;
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(segment), INITIAL_BUFFER_BYTES));
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] payload = readRecord(in, segment.size(), crc);
+                if (payload == null) {
+                    break;
+                }
+                position++;
+                validBytes += HEADER_BYTES + payload.length;
+                if (position > afterPosition) {
+                    apply(payload, onSave, onDelete);
+                    applied++;
+                }
+            }
+            lastPosition = Math.max(lastPosition, position);
+            if (segment.size() > validBytes) {
+                if (!last) {
+                    segment.close();
+                    throw new IOException("Corrupt write-ahead log segment " + segmentPath(bases.get(i)));
+                }
+                logger.warn("Truncating {} trailing bytes of write-ahead log segment {}", segment.size() - validBytes,
+                        segmentPath(bases.get(i)));
+                segment.truncate(validBytes);
+            }
+            if (last && position >= afterPosition) {
+                segment.position(validBytes);
+                channel = segment;
+            } else {
+                segment.close();
+            }
+        }
+        if (channel == null) {
+            channel = createSegment(lastPosition + 1);
+        }
+
+        appendedPosition = lastPosition;
+        writtenPosition = lastPosition;
+        syncedPosition = lastPosition;
+        writer = new Thread(this::writeLoop, "contact-wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Replayed {} records from write-ahead log {}", applied, directory);
+        return applied;
+    }
+
+    @Override
+    public long logSave(Contact contact) {
+        return append(SAVE, contact.getId(), contact.getName(), contact.getPhone(), contact.getEmail());
+    }
+
+    @Override
+    public long logDelete(String id) {
+        return append(DELETE, id);
+    }
+
+    @Override
+    public long position() {
+        lock.lock();
+        try {
+            return appendedPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void awaitDurable(long position) {
+        lock.lock();
+        try {
+            while (committedPosition() < position && failure == null) {
+                committed.awaitUninterruptibly();
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Write-ahead log " + directory + " failed", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes the writer start a new segment after the records appended so far, so that the segments before
+     * it can be deleted once a snapshot covers them. Returns once the new segment is in use.
+     */
+    public void rollover() {
+        lock.lock();
+        try {
+            long target = rollovers + 1;
+            rolloverRequested = true;
+            appended.signal();
+            while (rollovers < target && failure == null && !closed) {
+                committed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes every segment whose records all lie at or before {@code position}. The active segment is kept.
+     */
+    public int deleteSegmentsThrough(long position) throws IOException {
+        List<Long> bases = segmentBases();
+        int deleted = 0;
+        for (int i = 0; i + 1 < bases.size() && bases.get(i + 1) - 1 <= position; i++) {
+            Files.deleteIfExists(segmentPath(bases.get(i)));
+            deleted++;
+        }
+        return deleted;
+    }
+
+    public DurabilityMode getMode() {
+        return mode;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (writer != null) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (channel != null) {
+            try {
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private long append(byte type, String... fields) {
+        byte[] payload = encode(type, fields);
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        lock.lock();
+        try {
+            if (closed || writer == null) {
+                throw new IllegalStateException("Write-ahead log " + directory + " is not open for appends");
+            }
+            ensureCapacity(HEADER_BYTES + payload.length);
+            pending.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+            appended.signal();
+            return ++appendedPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        long lastSync = System.nanoTime();
+        while (true) {
+            ByteBuffer batch;
+            long batchEnd;
+            boolean finalPass;
+            boolean rollover;
+            lock.lock();
+            try {
+                while (pending.position() == 0 && !closed && !rolloverRequested && !syncDue(lastSync)) {
+                    if (mode == DurabilityMode.INTERVAL && writtenPosition > syncedPosition) {
+                        appended.awaitNanos(syncIntervalNanos - (System.nanoTime() - lastSync));
+                    } else {
+                        appended.await();
+                    }
+                }
+                batch = pending;
+                pending = spare;
+                spare = null;
+                batchEnd = appendedPosition;
+                finalPass = closed;
+                rollover = rolloverRequested;
+                rolloverRequested = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            boolean synced = false;
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                if (mode == DurabilityMode.SYNC || syncDue(lastSync) || finalPass || rollover) {
+                    channel.force(false);
+                    lastSync = System.nanoTime();
+                    synced = true;
+                }
+                if (rollover && !finalPass) {
+                    FileChannel next = createSegment(batchEnd + 1);
+                    channel.close();
+                    channel = next;
+                }
+            } catch (IOException e) {
+                logger.error("Failed to write to write-ahead log {}", directory, e);
+                error = e;
+            }
+
+            lock.lock();
+            try {
+                batch.clear();
+                spare = batch;
+                if (error != null) {
+                    failure = error;
+                } else {
+                    writtenPosition = batchEnd;
+                    if (synced) {
+                        syncedPosition = batchEnd;
+                    }
+                    if (rollover) {
+                        rollovers++;
+                    }
+                }
+                committed.signalAll();
+                if (finalPass || failure != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean syncDue(long lastSync) {
+        return mode == DurabilityMode.INTERVAL && writtenPosition > syncedPosition
+                && System.nanoTime() - lastSync >= syncIntervalNanos;
+    }
+
+    private long committedPosition() {
+        return mode == DurabilityMode.SYNC ? syncedPosition : writtenPosition;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (pending.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+    }
+
+    private List<Long> segmentBases() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> SEGMENT_NAME.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private Path segmentPath(long base) {
+        return directory.resolve(String.format("%020d.wal", base));
+    }
+
+    private FileChannel createSegment(long base) throws IOException {
+        return FileChannel.open(segmentPath(base), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    private static byte[] readRecord(DataInputStream in, long segmentSize, CRC32 crc) throws IOException {
+        try {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length <= 0 || length > segmentSize) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            crc.reset();
+            crc.update(payload, 0, payload.length);
+            return (int) crc.getValue() == checksum ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static byte[] encode(byte type, String... fields) {
+        byte[][] encoded = new byte[fields.length][];
+        int size = 1;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] != null) {
+                encoded[i] = fields[i].getBytes(StandardCharsets.UTF_8);
+                size += encoded[i].length;
+            }
+            size += 5;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(type);
+        for (byte[] field : encoded) {
+            putVarInt(buffer, field == null ? 0 : field.length + 1);
+            if (field != null) {
+                buffer.put(field);
+            }
+        }
+        byte[] payload = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(payload);
+        return payload;
+    }
+
+    private static void apply(byte[] payload, Consumer<Contact> onSave, Consumer<String> onDelete) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        byte type = buffer.get();
+        if (type == SAVE) {
+            onSave.accept(new Contact(getString(buffer), getString(buffer), getString(buffer), getString(buffer)));
+        } else if (type == DELETE) {
+            onDelete.accept(getString(buffer));
+        } else {
+            throw new IllegalStateException("Unknown write-ahead log record type " + type);
+        }
+    }
+
+    private static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        if (value == 0) {
+            return null;
+        }
+        String s = new String(buffer.array(), buffer.position(), value - 1, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + value - 1);
+        return s;
+    }
+}
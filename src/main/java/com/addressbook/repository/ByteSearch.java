@@ -0,0 +1,36 @@
+package com.addressbook.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Substring search over raw bytes, used to scan packed contact text without decoding it.
+ */
+interface ByteSearch {
+
+    /** Offset of the first occurrence of {@code needle} that lies entirely in {@code text[from, to)}, or -1. */
+    int indexOf(byte[] text, int from, int to, byte[] needle);
+
+    /** Human-readable name for logs and the storage endpoint. */
+    String name();
+
+    static ByteSearch scalar() {
+        return ScalarByteSearch.INSTANCE;
+    }
+
+    /**
+     * The Vector API implementation when it was built in with {@code -P vector} and the JVM was started with
+     * {@code --add-modules jdk.incubator.vector}, otherwise the scalar one. It is loaded by name so that the
+     * default build neither needs nor warns about the incubator module.
+     */
+    static ByteSearch best() {
+        try {
+            return (ByteSearch) Class.forName("com.addressbook.repository.VectorByteSearch")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            Logger logger = LoggerFactory.getLogger(ByteSearch.class);
+            logger.info("Vector API unavailable ({}), scanning packed contact text with scalar code", e.toString());
+            return scalar();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.addressbook.repository;
+
+import com.addressbook.model.ChangeType;
+import com.addressbook.model.ContactChange;
+import com.addressbook.model.ContactChanges;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The most recent mutations of {@link InMemoryContactRepository}, in a ring indexed by sequence number, so a
+ * client can fetch what changed after the last sequence number it saw instead of searching again.
+ * <p>
+ * Sequence numbers come from the repository's version counter, are taken inside the per-contact critical
+ * section and are recorded before it is left. Writers in different shards may record them out of order, so a
+ * reader only returns changes up to the first sequence number not recorded yet; every sequence number is
+ * recorded shortly after it is taken. A client whose next change has been overwritten must resync.
+ */
+final class ChangeFeed {
+
+    static final int DEFAULT_CAPACITY = 65536;
+
+    private final AtomicLong sequences;
+    private final long start;
+    private final AtomicReferenceArray<Entry> ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition recorded = lock.newCondition();
+    // Written under lock; read by writers without it to skip signalling when nobody waits.
+    private volatile int waiters;
+
+    private static final class Entry {
+        final long sequence;
+        final String id;
+        final boolean created;
+        final StoredContact contact;
+
+        Entry(long sequence, String id, boolean created, StoredContact contact) {
+            this.sequence = sequence;
+            this.id = id;
+            this.created = created;
+            this.contact = contact;
+        }
+
+        ContactChange toChange() {
+            ChangeType type = contact == null ? ChangeType.DELETED : created ? ChangeType.CREATED : ChangeType.UPDATED;
+            return new ContactChange(sequence, type, id, contact == null ? null : contact.toContact());
+        }
+    }
+
+    ChangeFeed(AtomicLong sequences, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Change feed capacity must be positive: " + capacity);
+        }
+        this.sequences = sequences;
+        this.start = sequences.get();
+        this.ring = new AtomicReferenceArray<>(capacity);
+    }
+
+    /** Last sequence number taken; a client starting now follows the feed from here. */
+    long head() {
+        return sequences.get();
+    }
+
+    /** Records the mutation numbered {@code sequence}; {@code current} is null for a delete. */
+    void record(long sequence, StoredContact previous, StoredContact current) {
+        String id = current != null ? current.getId() : previous.getId();
+        Entry entry = new Entry(sequence, id, previous == null, current);
+        // A writer that has fallen a whole lap behind must not replace a newer entry.
+        ring.accumulateAndGet(slot(sequence), entry,
+                (existing, next) -> existing == null || existing.sequence < next.sequence ? next : existing);
+    }
+
+    /** Wakes readers waiting in {@link #await}; called after the critical section that recorded a change. */
+    void signal() {
+        if (waiters == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            recorded.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    ContactChanges since(long since, int limit) {
+        long head = sequences.get();
+        if (since < start || since > head) {
+            return resync(head);
+        }
+        List<ContactChange> changes = new ArrayList<>((int) Math.min(limit, Math.min(head - since, 1024)));
+        long sequence = since;
+        while (changes.size() < limit && sequence < head) {
+            Entry entry = ring.get(slot(sequence + 1));
+            if (entry == null || entry.sequence <= sequence) {
+                // Taken by a writer that has not recorded it yet.
+                break;
+            }
+            if (entry.sequence > sequence + 1) {
+                if (changes.isEmpty()) {
+                    return resync(head);
+                }
+                break;
+            }
+            changes.add(entry.toChange());
+            sequence++;
+        }
+        return new ContactChanges(changes, sequence, false);
+    }
+
+    /** Like {@link #since}, but waits up to {@code timeoutMillis} for a change if there is none yet. */
+    ContactChanges await(long since, int limit, long timeoutMillis) throws InterruptedException {
+        ContactChanges changes = since(since, limit);
+        if (!changes.getChanges().isEmpty() || changes.isResyncRequired()) {
+            return changes;
+        }
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            waiters++;
+            try {
+                while (true) {
+                    changes = since(since, limit);
+                    if (!changes.getChanges().isEmpty() || changes.isResyncRequired() || remaining <= 0) {
+                        return changes;
+                    }
+                    remaining = recorded.awaitNanos(remaining);
+                }
+            } finally {
+                waiters--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int slot(long sequence) {
+        return (int) Math.floorMod(sequence, (long) ring.length());
+    }
+
+    private static ContactChanges resync(long head) {
+        return new ContactChanges(Collections.emptyList(), head, true);
+    }
+}
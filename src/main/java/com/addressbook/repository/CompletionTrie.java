@@ -0,0 +1,306 @@
+package com.addressbook.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Character trie over the terms a user may start typing: each word of a name, the whole name and the email,
+ * lower-cased. Every node caches the {@link #MAX_COMPLETIONS} most common terms below it, so completing a
+ * prefix is a walk down its characters and a read of that node's list.
+ * <p>
+ * Writers are serialized by the trie's lock and patch the cached lists along the changed term's path. A
+ * term that loses contacts while in a full list might now be beaten by one that is not listed, so that list is
+ * dropped and rebuilt from the children's lists by the next reader that needs it. Readers otherwise never lock.
+ * <p>
+ * The repository applies each change after the contact's write has completed, so changes to one contact may
+ * arrive out of order. Every change only adds to or subtracts from term counts, so the trie ends up the same
+ * either way; a count may briefly drop below zero and such a term is never listed.
+ */
+class CompletionTrie {
+
+    static final int MAX_COMPLETIONS = 10;
+
+    // Object header and fields of a node, plus its slot in the parent's key and child arrays.
+    private static final int NODE_BYTES = 40 + Character.BYTES + Integer.BYTES;
+    // A completion and its term's string and array headers; the characters are counted separately.
+    private static final int TERM_BYTES = 16 + 24 + 16;
+
+    private static final Completion[] NONE = new Completion[0];
+    private static final Comparator<Completion> MOST_COMMON =
+            Comparator.comparingInt((Completion completion) -> completion.count).reversed().thenComparing(completion -> completion.term);
+
+    private final Node root = new Node(null, '\0');
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by the lock.
+    private long nodes = 1;
+    private long listedSlots;
+    private long termChars;
+    private long terms;
+
+    private static final class Completion {
+        final String term;
+        final int count;
+
+        Completion(String term, int count) {
+            this.term = term;
+            this.count = count;
+        }
+    }
+
+    /** Sorted child characters and the nodes they lead to, replaced as a whole so readers need no lock. */
+    private static final class Children {
+        static final Children EMPTY = new Children(new char[0], new Node[0]);
+
+        final char[] keys;
+        final Node[] nodes;
+
+        Children(char[] keys, Node[] nodes) {
+            this.keys = keys;
+            this.nodes = nodes;
+        }
+
+        Node get(char key) {
+            int i = Arrays.binarySearch(keys, key);
+            return i < 0 ? null : nodes[i];
+        }
+
+        Children with(char key, Node node) {
+            int at = -Arrays.binarySearch(keys, key) - 1;
+            char[] grownKeys = new char[keys.length + 1];
+            Node[] grownNodes = new Node[nodes.length + 1];
+            System.arraycopy(keys, 0, grownKeys, 0, at);
+            System.arraycopy(nodes, 0, grownNodes, 0, at);
+            grownKeys[at] = key;
+            grownNodes[at] = node;
+            System.arraycopy(keys, at, grownKeys, at + 1, keys.length - at);
+            System.arraycopy(nodes, at, grownNodes, at + 1, nodes.length - at);
+            return new Children(grownKeys, grownNodes);
+        }
+
+        Children without(char key) {
+            int at = Arrays.binarySearch(keys, key);
+            if (keys.length == 1) {
+                return EMPTY;
+            }
+            char[] shrunkKeys = new char[keys.length - 1];
+            Node[] shrunkNodes = new Node[nodes.length - 1];
+            System.arraycopy(keys, 0, shrunkKeys, 0, at);
+            System.arraycopy(nodes, 0, shrunkNodes, 0, at);
+            System.arraycopy(keys, at + 1, shrunkKeys, at, keys.length - at - 1);
+            System.arraycopy(nodes, at + 1, shrunkNodes, at, nodes.length - at - 1);
+            return new Children(shrunkKeys, shrunkNodes);
+        }
+    }
+
+    private static final class Node {
+        final Node parent;
+        final char character;
+        volatile Children children = Children.EMPTY;
+        // Contacts having the term that ends at this node; guarded by the trie's lock.
+        int count;
+        // Most common terms in this subtree, or null while it must be rebuilt.
+        volatile Completion[] top = NONE;
+
+        Node(Node parent, char character) {
+            this.parent = parent;
+            this.character = character;
+        }
+    }
+
+    /**
+     * @param previous the replaced version, or null if the contact is new
+     * @param current  the new version, or null if the contact is deleted
+     */
+    void update(StoredContact previous, StoredContact current) {
+        Set<String> oldTerms = previous == null ? Collections.emptySet() : terms(previous);
+        Set<String> newTerms = current == null ? Collections.emptySet() : terms(current);
+        if (oldTerms.equals(newTerms)) {
+            return;
+        }
+        lock.lock();
+        try {
+            for (String term : newTerms) {
+                if (!oldTerms.contains(term)) {
+                    adjust(term, 1);
+                }
+            }
+            for (String term : oldTerms) {
+                if (!newTerms.contains(term)) {
+                    adjust(term, -1);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Up to {@code limit} (at most {@link #MAX_COMPLETIONS}) terms starting with {@code prefix}, most common first. */
+    List<String> complete(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        Node node = root;
+        for (int i = 0; i < normalized.length() && node != null; i++) {
+            node = node.children.get(normalized.charAt(i));
+        }
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        Completion[] top = node.top;
+        if (top == null) {
+            lock.lock();
+            try {
+                top = rebuild(node);
+            } finally {
+                lock.unlock();
+            }
+        }
+        List<String> terms = new ArrayList<>(Math.min(limit, top.length));
+        for (int i = 0; i < top.length && i < limit; i++) {
+            terms.add(top[i].term);
+        }
+        return terms;
+    }
+
+    /** Approximate bytes retained by the nodes, their cached lists and the terms in them. */
+    long estimatedBytes() {
+        lock.lock();
+        try {
+            return nodes * NODE_BYTES + listedSlots * Integer.BYTES + terms * TERM_BYTES + termChars;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static String normalize(String text) {
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> terms(StoredContact contact) {
+        Set<String> terms = new HashSet<>();
+        if (contact.getName() != null) {
+            terms.addAll(FuzzyNameIndex.words(contact.getName()));
+            String name = normalize(contact.getName());
+            if (!name.isEmpty()) {
+                terms.add(name);
+            }
+        }
+        String email = ExactIndex.normalizeEmail(contact.getEmail());
+        if (email != null) {
+            terms.add(email);
+        }
+        return terms;
+    }
+
+    private void adjust(String term, int delta) {
+        Node node = root;
+        for (int i = 0; i < term.length(); i++) {
+            char character = term.charAt(i);
+            Node child = node.children.get(character);
+            if (child == null) {
+                child = new Node(node, character);
+                node.children = node.children.with(character, child);
+                nodes++;
+            }
+            node = child;
+        }
+        boolean wasListable = node.count > 0;
+        node.count += delta;
+        if (wasListable != node.count > 0) {
+            terms += wasListable ? -1 : 1;
+            termChars += wasListable ? -term.length() : term.length();
+        }
+        Completion changed = new Completion(term, node.count);
+        for (Node n = node; n != null; n = n.parent) {
+            Completion[] top = n.top;
+            if (top != null) {
+                setTop(n, patch(top, changed, delta > 0));
+            }
+        }
+        while (node.parent != null && node.count == 0 && node.children.keys.length == 0) {
+            setTop(node, NONE);
+            node.parent.children = node.parent.children.without(node.character);
+            nodes--;
+            node = node.parent;
+        }
+    }
+
+    private void setTop(Node node, Completion[] top) {
+        Completion[] old = node.top;
+        listedSlots += (top == null ? 0 : top.length) - (old == null ? 0 : old.length);
+        node.top = top;
+    }
+
+    /**
+     * The list with {@code changed} moved to its new rank, the same array if its ranking is unaffected, or null
+     * if it can no longer be trusted. The list is already sorted, so the term is moved rather than re-sorted.
+     */
+    private static Completion[] patch(Completion[] top, Completion changed, boolean increased) {
+        int listed = -1;
+        for (int i = 0; i < top.length; i++) {
+            if (top[i].term.equals(changed.term)) {
+                listed = i;
+                break;
+            }
+        }
+        if (listed < 0 && (!increased || changed.count <= 0
+                || top.length == MAX_COMPLETIONS && MOST_COMMON.compare(changed, top[top.length - 1]) > 0)) {
+            return top;
+        }
+        if (!increased && listed >= 0 && top.length == MAX_COMPLETIONS) {
+            return null;
+        }
+        int size = top.length - (listed < 0 ? 0 : 1);
+        Completion[] rest = new Completion[size];
+        for (int i = 0, j = 0; i < top.length; i++) {
+            if (i != listed) {
+                rest[j++] = top[i];
+            }
+        }
+        if (changed.count <= 0) {
+            return rest;
+        }
+        int at = 0;
+        while (at < rest.length && MOST_COMMON.compare(rest[at], changed) < 0) {
+            at++;
+        }
+        Completion[] patched = new Completion[Math.min(rest.length + 1, MAX_COMPLETIONS)];
+        System.arraycopy(rest, 0, patched, 0, Math.min(at, patched.length));
+        if (at < patched.length) {
+            patched[at] = changed;
+            System.arraycopy(rest, at, patched, at + 1, patched.length - at - 1);
+        }
+        return patched;
+    }
+
+    private Completion[] rebuild(Node node) {
+        Completion[] top = node.top;
+        if (top != null) {
+            return top;
+        }
+        List<Completion> candidates = new ArrayList<>();
+        if (node.count > 0) {
+            candidates.add(new Completion(termOf(node), node.count));
+        }
+        for (Node child : node.children.nodes) {
+            candidates.addAll(Arrays.asList(rebuild(child)));
+        }
+        candidates.sort(MOST_COMMON);
+        top = candidates.subList(0, Math.min(candidates.size(), MAX_COMPLETIONS)).toArray(NONE);
+        setTop(node, top);
+        return top;
+    }
+
+    private static String termOf(Node node) {
+        StringBuilder term = new StringBuilder();
+        for (Node n = node; n.parent != null; n = n.parent) {
+            term.append(n.character);
+        }
+        return term.reverse().toString();
+    }
+}
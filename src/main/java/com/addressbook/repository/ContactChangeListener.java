@@ -0,0 +1,16 @@
+package com.addressbook.repository;
+
+import com.addressbook.model.Contact;
+
+/**
+ * Notified after each contact version is installed or removed, once readers can already see the change.
+ * Listeners are called on the writing thread and may be called concurrently, even for the same id.
+ */
+public interface ContactChangeListener {
+
+    /**
+     * @param previous the replaced version, or null if the contact was created
+     * @param current  the new version, or null if the contact was deleted
+     */
+    void contactChanged(Contact previous, Contact current);
+}
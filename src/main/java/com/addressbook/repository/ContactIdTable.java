@@ -0,0 +1,169 @@
+package com.addressbook.repository;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Open-addressing hash table from canonical UUID ids, given as two longs, to stored contact versions.
+ * <p>
+ * The table is split into segments with their own lock, so writers to different segments never contend.
+ * Readers never lock: they match slots against the id bits carried by the immutable version itself, so a
+ * slot that is concurrently freed and reused can never hand out another contact's version.
+ */
+final class ContactIdTable {
+
+    private static final StoredContact TOMBSTONE = new StoredContact(null, null, null, null, 0);
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    private static final class Segment {
+        final ReentrantLock lock = new ReentrantLock();
+        volatile AtomicReferenceArray<StoredContact> slots = new AtomicReferenceArray<>(INITIAL_SEGMENT_CAPACITY);
+        // Written with lock held.
+        volatile int size;
+        int used;
+    }
+
+    ContactIdTable() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    ContactIdTable(int concurrency) {
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(1, concurrency - 1));
+        segments = new Segment[1 << bits];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+        segmentShift = 32 - bits;
+    }
+
+    StoredContact get(long high, long low) {
+        int hash = hash(high, low);
+        AtomicReferenceArray<StoredContact> slots = segmentFor(hash).slots;
+        int mask = slots.length() - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            StoredContact contact = slots.get(i);
+            if (contact == null) {
+                return null;
+            }
+            if (contact != TOMBSTONE && contact.getIdHigh() == high && contact.getIdLow() == low) {
+                return contact;
+            }
+        }
+    }
+
+    StoredContact compute(String id, long high, long low, BiFunction<String, StoredContact, StoredContact> remapping) {
+        int hash = hash(high, low);
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            AtomicReferenceArray<StoredContact> slots = segment.slots;
+            int mask = slots.length() - 1;
+            int slot = -1;
+            int free = -1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                StoredContact contact = slots.get(i);
+                if (contact == null) {
+                    if (free < 0) {
+                        free = i;
+                    }
+                    break;
+                }
+                if (contact == TOMBSTONE) {
+                    if (free < 0) {
+                        free = i;
+                    }
+                } else if (contact.getIdHigh() == high && contact.getIdLow() == low) {
+                    slot = i;
+                    break;
+                }
+            }
+            StoredContact previous = slot < 0 ? null : slots.get(slot);
+
+            StoredContact next = remapping.apply(id, previous);
+            if (next == null) {
+                if (previous != null) {
+                    slots.set(slot, TOMBSTONE);
+                    segment.size--;
+                }
+                return null;
+            }
+            if (previous != null) {
+                slots.set(slot, next);
+                return next;
+            }
+            if (slots.get(free) == null) {
+                segment.used++;
+            }
+            slots.set(free, next);
+            segment.size++;
+            if (segment.used * 4L > slots.length() * 3L) {
+                resize(segment);
+            }
+            return next;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    long capacity() {
+        long capacity = 0;
+        for (Segment segment : segments) {
+            capacity += segment.slots.length();
+        }
+        return capacity;
+    }
+
+    void forEach(Consumer<StoredContact> action) {
+        for (Segment segment : segments) {
+            AtomicReferenceArray<StoredContact> slots = segment.slots;
+            for (int i = 0; i < slots.length(); i++) {
+                StoredContact contact = slots.get(i);
+                if (contact != null && contact != TOMBSTONE) {
+                    action.accept(contact);
+                }
+            }
+        }
+    }
+
+    private void resize(Segment segment) {
+        AtomicReferenceArray<StoredContact> slots = segment.slots;
+        int capacity = segment.size * 2L < slots.length() ? slots.length() : slots.length() * 2;
+        AtomicReferenceArray<StoredContact> resized = new AtomicReferenceArray<>(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < slots.length(); i++) {
+            StoredContact contact = slots.get(i);
+            if (contact != null && contact != TOMBSTONE) {
+                int j = hash(contact.getIdHigh(), contact.getIdLow()) & mask;
+                while (resized.get(j) != null) {
+                    j = (j + 1) & mask;
+                }
+                resized.set(j, contact);
+            }
+        }
+        segment.used = segment.size;
+        segment.slots = resized;
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[segmentShift == 32 ? 0 : hash >>> segmentShift];
+    }
+
+    static int hash(long high, long low) {
+        long h = high * 0x9E3779B97F4A7C15L + low;
+        h = (h ^ (h >>> 32)) * 0xD6E8FEB86659FD93L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
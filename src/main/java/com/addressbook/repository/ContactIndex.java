@@ -0,0 +1,14 @@
+package com.addressbook.repository;
+
+/**
+ * Secondary index kept up to date by {@link InMemoryContactRepository} inside the critical section of each
+ * write, so updates for one id are serialized; updates for different ids and lookups may run concurrently.
+ */
+interface ContactIndex {
+
+    /**
+     * @param previous the replaced version, or null if the contact is new
+     * @param current  the new version, or null if the contact is deleted
+     */
+    void update(StoredContact previous, StoredContact current);
+}
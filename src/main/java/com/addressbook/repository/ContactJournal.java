@@ -0,0 +1,42 @@
+package com.addressbook.repository;
+
+import com.addressbook.model.Contact;
+
+/**
+ * Receives every mutation applied by {@link InMemoryContactRepository}. The log methods are called
+ * inside the per-contact critical section, so records for the same id are appended in the order they
+ * were applied; they must not block on I/O. {@link #awaitDurable(long)} is called once the critical
+ * section has been left and may block until the record at that position is durable.
+ */
+public interface ContactJournal {
+
+    ContactJournal NONE = new ContactJournal() {
+        @Override
+        public long logSave(Contact contact) {
+            return 0;
+        }
+
+        @Override
+        public long logDelete(String id) {
+            return 0;
+        }
+
+        @Override
+        public long position() {
+            return 0;
+        }
+
+        @Override
+        public void awaitDurable(long position) {
+        }
+    };
+
+    long logSave(Contact contact);
+
+    long logDelete(String id);
+
+    /** Position of the last record logged so far. */
+    long position();
+
+    void awaitDurable(long position);
+}
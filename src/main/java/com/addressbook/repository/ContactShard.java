@@ -0,0 +1,24 @@
+package com.addressbook.repository;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One hash partition of {@link InMemoryContactRepository}: the contacts whose id hashes to it, the trigram
+ * index and packed text it searches them with, and the lock its batches take. Writers in different shards share none of these.
+ */
+final class ContactShard {
+
+    final int index;
+    final ContactStore contacts;
+    final TrigramIndex trigramIndex = new TrigramIndex();
+    final PackedText packedText = new PackedText();
+    // Single-contact writes share this lock so they never contend with each other; batches take it
+    // exclusively so they can validate and apply without other writers interleaving. Reads never take it.
+    final ReadWriteLock batchLock = new ReentrantReadWriteLock();
+
+    ContactShard(int index, ContactStore contacts) {
+        this.index = index;
+        this.contacts = contacts;
+    }
+}
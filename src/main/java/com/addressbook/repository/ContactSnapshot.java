@@ -0,0 +1,46 @@
+package com.addressbook.repository;
+
+import com.addressbook.model.Contact;
+
+/**
+ * Point-in-time view of the repository returned by {@link InMemoryContactRepository#snapshot()}. It only
+ * holds references to immutable contact versions, so taking it does not copy any contact data.
+ */
+public class ContactSnapshot {
+
+    private final long position;
+    private final StoredContact[] contacts;
+
+    ContactSnapshot(long position, StoredContact[] contacts) {
+        this.position = position;
+        this.contacts = contacts;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public int size() {
+        return contacts.length;
+    }
+
+    public Contact get(int index) {
+        return contacts[index].toContact();
+    }
+
+    public String getId(int index) {
+        return contacts[index].getId();
+    }
+
+    public String getName(int index) {
+        return contacts[index].getName();
+    }
+
+    public String getPhone(int index) {
+        return contacts[index].getPhone();
+    }
+
+    public String getEmail(int index) {
+        return contacts[index].getEmail();
+    }
+}
@@ -0,0 +1,33 @@
+package com.addressbook.repository;
+
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Storage engine behind {@link InMemoryContactRepository}: maps ids to the current immutable version of
+ * each contact. Lookups and iteration must not block; {@link #compute} must be atomic per id.
+ */
+interface ContactStore {
+
+    StoredContact get(String id);
+
+    /**
+     * Replaces the version stored for {@code id} with {@code remapping(id, current)}, removing it when the
+     * function returns null. The function runs while writers to the same id are excluded.
+     */
+    StoredContact compute(String id, BiFunction<String, StoredContact, StoredContact> remapping);
+
+    int size();
+
+    /** Weakly consistent iteration over the stored versions. */
+    void forEach(Consumer<StoredContact> action);
+
+    StoredContact[] toArray();
+
+    /** Approximate number of bytes retained by the stored contacts, excluding search indexes. */
+    long estimatedBytes();
+
+    default boolean containsKey(String id) {
+        return get(id) != null;
+    }
+}
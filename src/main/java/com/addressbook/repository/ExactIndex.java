@@ -0,0 +1,125 @@
+package com.addressbook.repository;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+
+/**
+ * Hash index from one normalized field to the ids of the contacts holding it, for O(1) exact lookups.
+ * <p>
+ * A writer enforcing uniqueness {@linkplain #reserve reserves} each key it is about to give a contact, so
+ * checking the key's holders and writing the contact happen as one step for that key while writes of other
+ * keys go ahead.
+ */
+class ExactIndex implements ContactIndex {
+
+    private final Function<StoredContact, String> keyOf;
+    private final Map<String, Set<String>> ids = new ConcurrentHashMap<>();
+    // Released by counting down, which wakes the writers waiting for the same key.
+    private final Map<String, CountDownLatch> reservations = new ConcurrentHashMap<>();
+
+    ExactIndex(Function<StoredContact, String> keyOf) {
+        this.keyOf = keyOf;
+    }
+
+    static ExactIndex email() {
+        return new ExactIndex(contact -> normalizeEmail(contact.getEmail()));
+    }
+
+    static ExactIndex phone() {
+        return new ExactIndex(contact -> normalizePhone(contact.getPhone()));
+    }
+
+    /** Trimmed and case-folded, or null if nothing is left. */
+    static String normalizeEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        String normalized = email.trim().toLowerCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    /**
+     * Digits only, so "+1 (555) 123-4567" and "1-555-123-4567" are the same number; null if there are none.
+     * A leading international "00" is dropped like a leading "+".
+     */
+    static String normalizePhone(String phone) {
+        String digits = digits(phone);
+        if (digits != null && digits.length() > 2 && digits.startsWith("00") && !phone.trim().startsWith("+")) {
+            digits = digits.substring(2);
+        }
+        return digits;
+    }
+
+    /** Just the digits of {@code phone}, or null if there are none. */
+    static String digits(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.length() == 0 ? null : digits.toString();
+    }
+
+    String keyOf(StoredContact contact) {
+        return keyOf.apply(contact);
+    }
+
+    @Override
+    public void update(StoredContact previous, StoredContact current) {
+        String oldKey = previous == null ? null : keyOf(previous);
+        String newKey = current == null ? null : keyOf(current);
+        if (Objects.equals(oldKey, newKey)) {
+            return;
+        }
+        if (newKey != null) {
+            ids.computeIfAbsent(newKey, key -> ConcurrentHashMap.newKeySet()).add(current.getId());
+        }
+        if (oldKey != null) {
+            ids.computeIfPresent(oldKey, (key, holders) -> {
+                holders.remove(previous.getId());
+                return holders.isEmpty() ? null : holders;
+            });
+        }
+    }
+
+    /** Ids of the contacts whose field normalizes to {@code key}; the contacts must still be verified. */
+    Set<String> get(String key) {
+        Set<String> holders = key == null ? null : ids.get(key);
+        return holders == null ? Collections.emptySet() : holders;
+    }
+
+    /**
+     * Waits until no other writer holds a reservation for {@code key}, then takes it until {@link #release}.
+     * Writers reserving several keys must reserve them in a common order so they cannot deadlock.
+     */
+    void reserve(String key) {
+        CountDownLatch reservation = new CountDownLatch(1);
+        boolean interrupted = false;
+        CountDownLatch held;
+        while ((held = reservations.putIfAbsent(key, reservation)) != null) {
+            try {
+                held.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void release(String key) {
+        reservations.remove(key).countDown();
+    }
+}
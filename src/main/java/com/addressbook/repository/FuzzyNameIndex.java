@@ -0,0 +1,234 @@
+package com.addressbook.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Symmetric-delete index over the words of contact names. Every distinct word is stored together with each
+ * string obtained by deleting up to {@link #MAX_DISTANCE} of its characters; a query word generates its own
+ * deletes and only the words sharing one of them are compared by edit distance. Lookups therefore cost a few
+ * hash probes per query word instead of a distance computation per contact.
+ * <p>
+ * Updates for one id must be serialized by the caller; updates for different ids and lookups may run
+ * concurrently.
+ */
+class FuzzyNameIndex implements ContactIndex {
+
+    static final int MAX_DISTANCE = 2;
+    // Longer words are only matched exactly; their delete sets would grow quadratically.
+    static final int MAX_FUZZY_LENGTH = 32;
+
+    // Word -> ids of the contacts whose name contains it.
+    private final Map<String, Set<String>> postings = new ConcurrentHashMap<>();
+    // Word with up to MAX_DISTANCE characters deleted -> indexed words it came from.
+    private final Map<String, Set<String>> deletes = new ConcurrentHashMap<>();
+
+    @Override
+    public void update(StoredContact previous, StoredContact current) {
+        Set<String> oldWords = previous == null ? Collections.emptySet() : words(previous.getName());
+        Set<String> newWords = current == null ? Collections.emptySet() : words(current.getName());
+
+        for (String word : newWords) {
+            if (!oldWords.contains(word)) {
+                // The delete entries of a word are maintained under its postings bin lock, so a word that
+                // concurrently empties and reappears never ends up without them.
+                postings.compute(word, (key, ids) -> {
+                    if (ids == null) {
+                        ids = ConcurrentHashMap.newKeySet();
+                        for (String variant : variants(key, MAX_DISTANCE)) {
+                            deletes.computeIfAbsent(variant, v -> ConcurrentHashMap.newKeySet()).add(key);
+                        }
+                    }
+                    ids.add(current.getId());
+                    return ids;
+                });
+            }
+        }
+        for (String word : oldWords) {
+            if (!newWords.contains(word)) {
+                postings.computeIfPresent(word, (key, ids) -> {
+                    ids.remove(previous.getId());
+                    if (!ids.isEmpty()) {
+                        return ids;
+                    }
+                    for (String variant : variants(key, MAX_DISTANCE)) {
+                        deletes.computeIfPresent(variant, (v, words) -> {
+                            words.remove(key);
+                            return words.isEmpty() ? null : words;
+                        });
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * Ids of the contacts whose name has, for every word of the query, a word within
+     * {@link #maxDistance(String)} edits of it, mapped to the sum of those distances.
+     */
+    Map<String, Integer> candidates(String query) {
+        Set<String> queryWords = words(query);
+        if (queryWords.isEmpty()) {
+            throw new IllegalArgumentException("Fuzzy query must contain a letter or digit");
+        }
+        Map<String, Integer> result = null;
+        for (String queryWord : queryWords) {
+            Map<String, Integer> matches = matches(queryWord);
+            if (result == null) {
+                result = matches;
+            } else {
+                Map<String, Integer> both = new HashMap<>();
+                for (Map.Entry<String, Integer> entry : result.entrySet()) {
+                    Integer distance = matches.get(entry.getKey());
+                    if (distance != null) {
+                        both.put(entry.getKey(), entry.getValue() + distance);
+                    }
+                }
+                result = both;
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Integer> matches(String queryWord) {
+        int maxDistance = maxDistance(queryWord);
+        Set<String> compared = new HashSet<>();
+        Map<String, Integer> ids = new HashMap<>();
+        for (String variant : variants(queryWord, maxDistance)) {
+            Set<String> words = deletes.get(variant);
+            if (words == null) {
+                continue;
+            }
+            for (String word : words) {
+                int distance = compared.add(word) ? distance(queryWord, word, maxDistance) : maxDistance + 1;
+                Set<String> postingIds = distance > maxDistance ? null : postings.get(word);
+                if (postingIds != null) {
+                    for (String id : postingIds) {
+                        ids.merge(id, distance, Math::min);
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Sum of the edit distances from each query word to the closest word of {@code name}, or -1 if some query
+     * word has no word within its allowed distance.
+     */
+    static int score(String query, String name) {
+        Set<String> nameWords = words(name);
+        int total = 0;
+        for (String queryWord : words(query)) {
+            int maxDistance = maxDistance(queryWord);
+            int best = maxDistance + 1;
+            for (String nameWord : nameWords) {
+                best = Math.min(best, distance(queryWord, nameWord, maxDistance));
+            }
+            if (best > maxDistance) {
+                return -1;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    /** Edits tolerated for a query word: none for one or two characters, one up to five, two beyond. */
+    static int maxDistance(String word) {
+        if (word.length() <= 2 || word.length() > MAX_FUZZY_LENGTH) {
+            return 0;
+        }
+        return word.length() <= 5 ? 1 : MAX_DISTANCE;
+    }
+
+    static Set<String> words(String text) {
+        if (text == null) {
+            return Collections.emptySet();
+        }
+        Set<String> words = new LinkedHashSet<>();
+        String normalized = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /** The word itself and every string obtained by deleting up to {@code distance} of its characters. */
+    static Set<String> variants(String word, int distance) {
+        Set<String> variants = new HashSet<>();
+        variants.add(word);
+        if (word.length() > MAX_FUZZY_LENGTH) {
+            return variants;
+        }
+        List<String> frontier = Collections.singletonList(word);
+        for (int d = 0; d < distance; d++) {
+            List<String> next = new ArrayList<>();
+            for (String s : frontier) {
+                for (int i = 0; i < s.length(); i++) {
+                    String deleted = s.substring(0, i) + s.substring(i + 1);
+                    if (!deleted.isEmpty() && variants.add(deleted)) {
+                        next.add(deleted);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return variants;
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent transpositions), or {@code max + 1} as soon
+     * as it is known to exceed {@code max}.
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] row = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            row[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(row[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                row[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = row;
+            row = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
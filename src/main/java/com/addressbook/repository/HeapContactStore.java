@@ -0,0 +1,113 @@
+package com.addressbook.repository;
+
+import com.addressbook.model.ContactId;
+import com.addressbook.model.JsonFragment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Default engine: one {@link StoredContact} object per contact. Canonical UUID ids are kept in a
+ * {@link ContactIdTable} keyed by their two {@code long}s; ids in any other form fall back to a
+ * {@link ConcurrentHashMap} whose writers are serialized by striped locks. Writers for different ids only
+ * contend when they land in the same segment or stripe.
+ * <p>
+ * {@link #compute} never runs the remapping function inside a monitor, since it appends to the write-ahead log
+ * and may block there; a virtual thread blocked inside {@code synchronized} would pin its carrier thread.
+ */
+class HeapContactStore implements ContactStore {
+
+    // Compressed-oops object layout: header plus fields, rounded up to 8 bytes.
+    private static final int TABLE_SLOT_BYTES = 4;
+    private static final int MAP_NODE_BYTES = 32;
+    private static final int MAP_SLOT_BYTES = 6;
+    private static final int STORED_CONTACT_BYTES = 64;
+    private static final int JSON_FRAGMENT_BYTES = 16;
+    private static final int STRING_BYTES = 24;
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private final ContactIdTable uuids = new ContactIdTable();
+    private final Map<String, StoredContact> others = new ConcurrentHashMap<>();
+    private final ReentrantLock[] otherLocks = new ReentrantLock[64];
+
+    HeapContactStore() {
+        for (int i = 0; i < otherLocks.length; i++) {
+            otherLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public StoredContact get(String id) {
+        if (ContactId.isCanonical(id)) {
+            return uuids.get(ContactId.high(id), ContactId.low(id));
+        }
+        return others.get(id);
+    }
+
+    @Override
+    public StoredContact compute(String id, BiFunction<String, StoredContact, StoredContact> remapping) {
+        if (ContactId.isCanonical(id)) {
+            return uuids.compute(id, ContactId.high(id), ContactId.low(id), remapping);
+        }
+        int hash = id.hashCode();
+        ReentrantLock lock = otherLocks[(hash ^ (hash >>> 16)) & (otherLocks.length - 1)];
+        lock.lock();
+        try {
+            StoredContact current = remapping.apply(id, others.get(id));
+            if (current == null) {
+                others.remove(id);
+            } else {
+                others.put(id, current);
+            }
+            return current;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return uuids.size() + others.size();
+    }
+
+    @Override
+    public void forEach(Consumer<StoredContact> action) {
+        uuids.forEach(action);
+        others.values().forEach(action);
+    }
+
+    @Override
+    public StoredContact[] toArray() {
+        List<StoredContact> contacts = new ArrayList<>(size());
+        forEach(contacts::add);
+        return contacts.toArray(new StoredContact[0]);
+    }
+
+    @Override
+    public long estimatedBytes() {
+        long[] bytes = {uuids.capacity() * TABLE_SLOT_BYTES + (long) others.size() * (MAP_NODE_BYTES + MAP_SLOT_BYTES)};
+        forEach(contact -> bytes[0] += STORED_CONTACT_BYTES
+                + stringBytes(contact.getId()) + stringBytes(contact.getName())
+                + stringBytes(contact.getPhone()) + stringBytes(contact.getEmail())
+                + jsonBytes(contact.getJsonFragment()));
+        return bytes[0];
+    }
+
+    private static long jsonBytes(JsonFragment fragment) {
+        return fragment == null ? 0 : JSON_FRAGMENT_BYTES + ((ARRAY_HEADER_BYTES + fragment.length() + 7) & ~7L);
+    }
+
+    private static long stringBytes(String value) {
+        if (value == null) {
+            return 0;
+        }
+        boolean latin1 = value.chars().allMatch(c -> c < 0x100);
+        long array = ARRAY_HEADER_BYTES + (long) value.length() * (latin1 ? 1 : 2);
+        return STRING_BYTES + ((array + 7) & ~7L);
+    }
+}
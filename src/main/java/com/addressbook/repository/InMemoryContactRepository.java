@@ -1,69 +1,966 @@
 package com.addressbook.repository;
 
-import com.addressbook.controller.ContactController;
+import com.addressbook.exception.ContactNotFoundException;
+import com.addressbook.exception.DuplicateContactException;
 import com.addressbook.model.Contact;
+import com.addressbook.model.ContactChanges;
+import com.addressbook.model.ContactPage;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 @Repository
 public class InMemoryContactRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(InMemoryContactRepository.class);
+    private static final Comparator<StoredContact> BY_ID = Comparator.comparing(StoredContact::getId);
 
-    private final Map<String, Contact> contacts = new ConcurrentHashMap<>();
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Contacts are partitioned by id hash. Writers for the same id are serialized by the ContactStore.compute
+    // of its shard; the indexes are maintained inside that critical section, except for the completion trie,
+    // which is shared by every shard and updated once the write is done. Readers only ever see complete
+    // immutable versions.
+    private final ContactShard[] shards;
+    private final ForkJoinPool searchPool = ForkJoinPool.commonPool();
+    // Every mutation takes the next version, deletes included, which doubles as its change feed sequence number.
+    // Starting from the clock in microseconds puts them above any sequence number a client kept from an earlier
+    // run that averaged under a million writes a second, so the feed tells that client to resync rather than
+    // serving it unrelated changes. They stay below 2^53, so JavaScript clients read them exactly.
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final ChangeFeed changes;
+    private final ExactIndex emailIndex = ExactIndex.email();
+    private final ExactIndex phoneIndex = ExactIndex.phone();
+    private final PhoneTrie phonePrefixes = new PhoneTrie(false);
+    private final PhoneTrie phoneSuffixes = new PhoneTrie(true);
+    private final FuzzyNameIndex fuzzyNameIndex = new FuzzyNameIndex();
+    private final CompletionTrie completions = new CompletionTrie();
+    private final List<ContactIndex> indexes =
+            Arrays.asList(emailIndex, phoneIndex, phonePrefixes, phoneSuffixes, fuzzyNameIndex);
+    private volatile boolean uniqueEmails;
+    private volatile boolean uniquePhones;
+    private volatile ContactJournal journal = ContactJournal.NONE;
+    private volatile RepositoryMetrics metrics = RepositoryMetrics.NONE;
+    private final List<ContactChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    public InMemoryContactRepository() {
+        this("heap", 1);
+    }
+
+    public InMemoryContactRepository(String storageEngine) {
+        this(storageEngine, 1);
+    }
+
+    public InMemoryContactRepository(String storageEngine, int shardCount) {
+        this(storageEngine, shardCount, ChangeFeed.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * {@code shardCount} 0 means one shard per available processor. The change feed keeps the last
+     * {@code changeCapacity} mutations.
+     */
+    @Autowired
+    public InMemoryContactRepository(@Value("${addressbook.storage.engine:heap}") String storageEngine,
+                                     @Value("${addressbook.storage.shards:0}") int shardCount,
+                                     @Value("${addressbook.changes.capacity:" + ChangeFeed.DEFAULT_CAPACITY + "}") int changeCapacity) {
+        this.changes = new ChangeFeed(versions, changeCapacity);
+        if (shardCount < 0) {
+            throw new IllegalArgumentException("Shard count must not be negative: " + shardCount);
+        }
+        int count = shardCount == 0 ? Runtime.getRuntime().availableProcessors() : shardCount;
+        this.shards = new ContactShard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new ContactShard(i, createStore(storageEngine));
+        }
+        logger.info("Using {} contact storage in {} shards", shards[0].contacts.getClass().getSimpleName(), count);
+    }
+
+    static ContactStore createStore(String storageEngine) {
+        switch (storageEngine.toLowerCase()) {
+            case "heap":
+                return new HeapContactStore();
+            case "slab":
+                return new SlabContactStore();
+            default:
+                throw new IllegalArgumentException("Unknown contact storage engine: " + storageEngine);
+        }
+    }
+
+    /**
+     * Starts recording every subsequent mutation in {@code journal}. Contacts restored from the journal
+     * should be saved before it is attached so they are not logged a second time.
+     */
+    public void setJournal(ContactJournal journal) {
+        this.journal = journal;
+    }
+
+    /** Rejects writes that would give two contacts the same normalized email. */
+    @Value("${addressbook.unique.email:false}")
+    public void setUniqueEmails(boolean uniqueEmails) {
+        this.uniqueEmails = uniqueEmails;
+    }
+
+    /** Rejects writes that would give two contacts the same normalized phone number. */
+    @Value("${addressbook.unique.phone:false}")
+    public void setUniquePhones(boolean uniquePhones) {
+        this.uniquePhones = uniquePhones;
+    }
+
+    /**
+     * Scans packed contact text with the Vector API when the JVM provides it ({@code --add-modules
+     * jdk.incubator.vector}); false always uses the scalar scan.
+     */
+    @Value("${addressbook.search.vector-scan:true}")
+    public void setVectorScan(boolean vectorScan) {
+        ByteSearch search = vectorScan ? ByteSearch.best() : ByteSearch.scalar();
+        for (ContactShard shard : shards) {
+            shard.packedText.setSearch(search);
+        }
+    }
+
+    public String getScanEngine() {
+        return shards[0].packedText.getSearch().name();
+    }
+
+    public void addChangeListener(ContactChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry registry) {
+        this.metrics = new RepositoryMetrics(registry, this);
+    }
 
     public Optional<Contact> findById(String id) {
-        lock.readLock().lock();
+        long start = System.nanoTime();
+        logger.debug("Find contact by id {}", id);
+        StoredContact stored = get(id);
+        metrics.record(RepositoryMetrics.Operation.FIND, start);
+        return stored == null ? Optional.empty() : Optional.of(stored.toContact());
+    }
+
+    public void save(Contact contact) {
+        long start = System.nanoTime();
+        logger.debug("Save contact {}", contact);
+        long position;
+        ContactShard shard = shardFor(contact.getId());
+        lockShared(shard);
+        try (ReservedKeys ignored = reserveUnique(Collections.singletonList(contact))) {
+            checkUnique(Collections.singletonList(contact));
+            position = put(shard, contact);
+        } finally {
+            shard.batchLock.readLock().unlock();
+        }
+        journal.awaitDurable(position);
+        metrics.record(RepositoryMetrics.Operation.SAVE, start);
+    }
+
+    public void saveAll(Collection<Contact> batch) {
+        long start = System.nanoTime();
+        long position = 0;
+        List<ContactShard> locked = lockExclusive(batch, Contact::getId);
+        try (ReservedKeys ignored = reserveUnique(batch)) {
+            checkUnique(batch);
+            for (Contact contact : batch) {
+                position = put(shardFor(contact.getId()), contact);
+            }
+        } finally {
+            unlockExclusive(locked);
+        }
+        journal.awaitDurable(position);
+        metrics.batch(RepositoryMetrics.Operation.SAVE_ALL, batch.size());
+        metrics.record(RepositoryMetrics.Operation.SAVE_ALL, start);
+        logger.debug("Saved batch of {} contacts", batch.size());
+    }
+
+    /**
+     * Applies {@code mutation} to the current version of the contact and installs the result
+     * if no other writer replaced that version in the meantime, retrying otherwise.
+     */
+    public Optional<Contact> update(String id, UnaryOperator<Contact> mutation) {
+        long start = System.nanoTime();
+        Contact updated;
+        long position;
+        ContactShard shard = shardFor(id);
+        lockShared(shard);
         try {
-            logger.info("Find contact by id {}", id);
-            return Optional.ofNullable(contacts.get(id));
+            do {
+                StoredContact expected = shard.contacts.get(id);
+                if (expected == null) {
+                    metrics.record(RepositoryMetrics.Operation.UPDATE, start);
+                    return Optional.empty();
+                }
+                updated = mutation.apply(expected.toContact());
+                updated.setId(id);
+                try (ReservedKeys ignored = reserveUnique(Collections.singletonList(updated))) {
+                    checkUnique(Collections.singletonList(updated));
+                    position = compareAndSet(shard, expected, updated);
+                }
+            } while (position < 0);
         } finally {
-            lock.readLock().unlock();
+            shard.batchLock.readLock().unlock();
         }
+        journal.awaitDurable(position);
+        metrics.record(RepositoryMetrics.Operation.UPDATE, start);
+        logger.debug("Updated contact {}", updated);
+        return Optional.of(updated);
     }
-    public void save(Contact contact) {
-        lock.writeLock().lock();
+
+    /** Sequence number of the latest mutation, after which a client that has just loaded every contact follows the feed. */
+    public long lastChangeSequence() {
+        return changes.head();
+    }
+
+    /**
+     * Up to {@code limit} creates, updates and deletes numbered after {@code since}, oldest first. Only the last
+     * {@code addressbook.changes.capacity} mutations are kept, and sequence numbers start over above the old ones
+     * after a restart; when the changes after {@code since} are unknown for either reason the result asks for a
+     * resync.
+     */
+    public ContactChanges changesSince(long since, int limit) {
+        checkChangeLimit(limit);
+        return changes.since(since, limit);
+    }
+
+    /** Like {@link #changesSince}, but waits up to {@code timeoutMillis} for a mutation if there is none yet. */
+    public ContactChanges awaitChanges(long since, int limit, long timeoutMillis) throws InterruptedException {
+        checkChangeLimit(limit);
+        return changes.await(since, limit, timeoutMillis);
+    }
+
+    private static void checkChangeLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Change limit must be positive: " + limit);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (ContactShard shard : shards) {
+            size += shard.contacts.size();
+        }
+        return size;
+    }
+
+    /** Approximate bytes retained by the storage engine for all contacts, excluding search indexes. */
+    public long estimatedStorageBytes() {
+        long bytes = 0;
+        for (ContactShard shard : shards) {
+            bytes += shard.contacts.estimatedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Approximate bytes retained by the packed text that short queries scan and by the completion trie. The other
+     * search indexes are not included.
+     */
+    public long estimatedIndexBytes() {
+        long bytes = completions.estimatedBytes();
+        for (ContactShard shard : shards) {
+            bytes += shard.packedText.estimatedBytes();
+        }
+        return bytes;
+    }
+
+    public String getStorageEngine() {
+        return shards[0].contacts instanceof SlabContactStore ? "slab" : "heap";
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Applies every update in {@code batch} or none of them: all ids are checked before anything
+     * is written, and no other writer can interleave with the batch. Updates to the same id later
+     * in the batch see the result of the earlier ones.
+     */
+    public <T> List<Contact> updateAll(List<T> batch, Function<T, String> idOf, BiFunction<Contact, T, Contact> mutation) {
+        long start = System.nanoTime();
+        List<Contact> updated = new ArrayList<>(batch.size());
+        long position = 0;
+        List<ContactShard> locked = lockExclusive(batch, idOf);
         try {
-            logger.info("Save contact {}", contact);
-            contacts.put(contact.getId(), contact);
+            for (T update : batch) {
+                String id = idOf.apply(update);
+                if (id == null || !shardFor(id).contacts.containsKey(id)) {
+                    throw new ContactNotFoundException("Contact with ID " + id + " not found.");
+                }
+            }
+
+            Map<String, Contact> staged = new HashMap<>();
+            for (T update : batch) {
+                String id = idOf.apply(update);
+                Contact current = staged.containsKey(id) ? staged.get(id) : get(id).toContact();
+                Contact next = mutation.apply(current, update);
+                next.setId(id);
+                staged.put(id, next);
+                updated.add(next);
+            }
+            try (ReservedKeys ignored = reserveUnique(staged.values())) {
+                checkUnique(staged.values());
+                for (Contact contact : staged.values()) {
+                    position = put(shardFor(contact.getId()), contact);
+                }
+            }
         } finally {
-            lock.writeLock().unlock();
+            unlockExclusive(locked);
         }
+        journal.awaitDurable(position);
+        metrics.batch(RepositoryMetrics.Operation.UPDATE_ALL, batch.size());
+        metrics.record(RepositoryMetrics.Operation.UPDATE_ALL, start);
+        logger.debug("Updated batch of {} contacts", updated.size());
+        return updated;
     }
 
     public boolean deleteById(String id) {
-        lock.writeLock().lock();
+        long start = System.nanoTime();
+        long position;
+        ContactShard shard = shardFor(id);
+        lockShared(shard);
         try {
-            Contact removedContact = contacts.remove(id);
-            logger.info("Removed contact {}", removedContact);
-            return removedContact != null;
+            position = remove(shard, id);
         } finally {
-            lock.writeLock().unlock();
+            shard.batchLock.readLock().unlock();
+        }
+        if (position >= 0) {
+            journal.awaitDurable(position);
         }
+        metrics.record(RepositoryMetrics.Operation.DELETE, start);
+        return position >= 0;
     }
 
-    public List<Contact> search(String query) {
-        lock.readLock().lock();
+    public int deleteAll(Collection<String> ids) {
+        long start = System.nanoTime();
+        int deletedCount = 0;
+        long position = 0;
+        List<ContactShard> locked = lockExclusive(ids, Function.identity());
+        try {
+            for (String id : ids) {
+                long removed = remove(shardFor(id), id);
+                if (removed >= 0) {
+                    position = removed;
+                    deletedCount++;
+                }
+            }
+        } finally {
+            unlockExclusive(locked);
+        }
+        journal.awaitDurable(position);
+        metrics.batch(RepositoryMetrics.Operation.DELETE_ALL, ids.size());
+        metrics.record(RepositoryMetrics.Operation.DELETE_ALL, start);
+        logger.debug("Removed batch of {} contacts", deletedCount);
+        return deletedCount;
+    }
+
+    /**
+     * Captures every contact together with the journal position it reflects. Writers are paused only while
+     * the position is read, so no mutation at or before it is still in flight; the contacts themselves are
+     * collected afterwards and may also include some later mutations, which replaying the journal from the
+     * position re-applies idempotently.
+     */
+    public ContactSnapshot snapshot() {
+        long position;
+        List<ContactShard> locked = lockAll();
         try {
+            position = journal.position();
+        } finally {
+            unlockExclusive(locked);
+        }
+        List<StoredContact> contacts = new ArrayList<>(size());
+        for (ContactShard shard : shards) {
+            contacts.addAll(Arrays.asList(shard.contacts.toArray()));
+        }
+        return new ContactSnapshot(position, contacts.toArray(new StoredContact[0]));
+    }
 
-            return contacts.values().stream()
-                    .filter(contact -> contact.getName().toLowerCase().contains(query.toLowerCase()) ||
-                            contact.getPhone().contains(query) ||
-                            contact.getEmail().toLowerCase().contains(query.toLowerCase()))
-                    .collect(Collectors.toList());
+    /**
+     * Bulk-loads contacts recovered at startup, building the search indexes in parallel. Must be called
+     * before a journal is attached, since restored contacts are already durable.
+     */
+    public void restoreAll(Collection<Contact> restored) {
+        if (journal != ContactJournal.NONE) {
+            throw new IllegalStateException("Contacts must be restored before a journal is attached");
+        }
+        List<ContactShard> locked = lockAll();
+        try {
+            restored.parallelStream().forEach(contact -> put(shardFor(contact.getId()), contact));
         } finally {
-            lock.readLock().unlock();
+            unlockExclusive(locked);
+        }
+        logger.info("Restored {} contacts", restored.size());
+    }
+
+    /** Contacts whose email equals {@code email} ignoring case and surrounding blanks, without scanning. */
+    public List<Contact> findByEmail(String email) {
+        return findByKey(emailIndex, ExactIndex.normalizeEmail(email));
+    }
+
+    /** Contacts whose phone has the same digits as {@code phone}, whatever its formatting, without scanning. */
+    public List<Contact> findByPhone(String phone) {
+        return findByKey(phoneIndex, ExactIndex.normalizePhone(phone));
+    }
+
+    /**
+     * Up to {@code limit} contacts whose normalized phone starts with the digits of {@code prefix}, in number
+     * order. The cost grows with the number of results, not with the number of contacts.
+     */
+    public List<Contact> findByPhonePrefix(String prefix, int limit) {
+        return findInTrie(phonePrefixes, ExactIndex.normalizePhone(prefix), limit);
+    }
+
+    /** Up to {@code limit} contacts whose phone ends with the digits of {@code suffix}. */
+    public List<Contact> findByPhoneSuffix(String suffix, int limit) {
+        String digits = ExactIndex.digits(suffix);
+        return findInTrie(phoneSuffixes, digits == null ? null : new StringBuilder(digits).reverse().toString(), limit);
+    }
+
+    private List<Contact> findInTrie(PhoneTrie trie, String key, int limit) {
+        if (key == null) {
+            throw new IllegalArgumentException("Phone query must contain digits");
+        }
+        List<Contact> results = new ArrayList<>();
+        trie.visit(key, limit, id -> {
+            StoredContact contact = get(id);
+            String current = contact == null ? null : trie.keyOf(contact);
+            if (current == null || !current.startsWith(key)) {
+                return false;
+            }
+            results.add(contact.toContact());
+            return true;
+        });
+        return results;
+    }
+
+    /**
+     * Up to {@code limit} contacts whose name has, for every word of {@code query}, a word within a small edit
+     * distance of it (one edit for words of three to five characters, two for longer ones), closest first and
+     * then in id order.
+     */
+    public List<Contact> findByFuzzyName(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Search limit must be positive: " + limit);
+        }
+        // Rank by the distances the index saw and only fetch the winners; those are re-scored against the
+        // stored version, which may have changed since the index was read, and dropped if they no longer match.
+        Comparator<Map.Entry<String, Integer>> closest =
+                Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey());
+        PriorityQueue<Map.Entry<String, Integer>> best = new PriorityQueue<>(Math.min(limit, 1024) + 1, closest.reversed());
+        for (Map.Entry<String, Integer> candidate : fuzzyNameIndex.candidates(query).entrySet()) {
+            if (best.size() < limit) {
+                best.add(candidate);
+            } else if (closest.compare(candidate, best.peek()) < 0) {
+                best.poll();
+                best.add(candidate);
+            }
+        }
+        List<Map.Entry<StoredContact, Integer>> ranked = new ArrayList<>(best.size());
+        for (Map.Entry<String, Integer> entry : best) {
+            StoredContact contact = get(entry.getKey());
+            int score = contact == null ? -1 : FuzzyNameIndex.score(query, contact.getName());
+            if (score >= 0) {
+                ranked.add(new AbstractMap.SimpleImmutableEntry<>(contact, score));
+            }
+        }
+        ranked.sort(Map.Entry.<StoredContact, Integer>comparingByValue().thenComparing(entry -> entry.getKey().getId()));
+        List<Contact> results = new ArrayList<>(ranked.size());
+        for (Map.Entry<StoredContact, Integer> entry : ranked) {
+            results.add(entry.getKey().toContact());
+        }
+        return results;
+    }
+
+    /**
+     * Up to {@code limit} names, name words and emails starting with {@code prefix} (ignoring case), most common
+     * first. At most {@value CompletionTrie#MAX_COMPLETIONS} are kept per prefix.
+     */
+    public List<String> complete(String prefix, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Completion limit must be positive: " + limit);
+        }
+        return completions.complete(prefix, limit);
+    }
+
+    private List<Contact> findByKey(ExactIndex index, String key) {
+        List<Contact> results = new ArrayList<>();
+        for (String id : index.get(key)) {
+            StoredContact contact = get(id);
+            // The index is updated just before a new version is installed, so re-check the stored version.
+            if (contact != null && key.equals(index.keyOf(contact))) {
+                results.add(contact.toContact());
+            }
+        }
+        return results;
+    }
+
+    public List<Contact> search(String query) {
+        long start = System.nanoTime();
+        List<List<Contact>> perShard = fanOut((shard, counts) -> {
+            List<Contact> results = new ArrayList<>();
+            forEachMatch(shard, query, counts, contact -> results.add(contact.toContact()));
+            return results;
+        });
+        List<Contact> results = perShard.get(0);
+        for (int i = 1; i < perShard.size(); i++) {
+            results.addAll(perShard.get(i));
+        }
+        metrics.record(RepositoryMetrics.Operation.SEARCH, start);
+        return results;
+    }
+
+    /**
+     * Passes each match to {@code action} as soon as it is found, in no particular order. Shards are searched
+     * one after the other on the calling thread, so {@code action} need not be thread-safe.
+     */
+    public void search(String query, Consumer<Contact> action) {
+        long start = System.nanoTime();
+        int[] counts = new int[2];
+        for (ContactShard shard : shards) {
+            forEachMatch(shard, query, counts, contact -> action.accept(contact.toContact()));
+        }
+        metrics.search(counts[0], counts[1]);
+        metrics.record(RepositoryMetrics.Operation.SEARCH_STREAM, start);
+    }
+
+    /**
+     * Returns up to {@code limit} matches with ids greater than {@code after} (all matches if it is null), in id
+     * order, so a client can page through the results by passing the last id it received. Only {@code limit + 1}
+     * matches per shard are held at a time, however many there are.
+     */
+    public ContactPage search(String query, String after, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Search limit must be positive: " + limit);
+        }
+        long start = System.nanoTime();
+        Comparator<StoredContact> lastFirst = BY_ID.reversed();
+        List<PriorityQueue<StoredContact>> perShard = fanOut((shard, counts) -> {
+            PriorityQueue<StoredContact> page = new PriorityQueue<>(Math.min(limit, 1024) + 1, lastFirst);
+            forEachMatch(shard, query, counts, contact -> {
+                if (after == null || contact.getId().compareTo(after) > 0) {
+                    offer(page, contact, limit + 1, lastFirst);
+                }
+            });
+            return page;
+        });
+        PriorityQueue<StoredContact> page = merge(perShard, limit + 1, lastFirst);
+        boolean more = page.size() > limit;
+        if (more) {
+            page.poll();
+        }
+        Contact[] contacts = new Contact[page.size()];
+        for (int i = contacts.length - 1; i >= 0; i--) {
+            contacts[i] = page.poll().toContact();
+        }
+        String next = more ? contacts[contacts.length - 1].getId() : null;
+        metrics.record(RepositoryMetrics.Operation.SEARCH, start);
+        return new ContactPage(Arrays.asList(contacts), next);
+    }
+
+    /**
+     * Returns the {@code limit} most relevant matches, best first (see {@link Relevance}), ties in id order.
+     * Only {@code limit} matches per shard are held at a time, however many there are.
+     */
+    public List<Contact> searchRanked(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Search limit must be positive: " + limit);
+        }
+        long start = System.nanoTime();
+        List<PriorityQueue<RankedContact>> perShard = fanOut((shard, counts) -> {
+            PriorityQueue<RankedContact> best = new PriorityQueue<>(Math.min(limit, 1024) + 1, RankedContact.WORST_FIRST);
+            forEachMatch(shard, query, counts, contact -> {
+                // A match the scorer cannot place (case folding differs for a few characters) ranks lowest.
+                int score = Math.max(Relevance.score(contact, query), Relevance.NONE + 1);
+                if (best.size() < limit) {
+                    best.add(new RankedContact(contact, score));
+                } else if (RankedContact.isBetter(contact, score, best.peek())) {
+                    best.poll();
+                    best.add(new RankedContact(contact, score));
+                }
+            });
+            return best;
+        });
+        PriorityQueue<RankedContact> best = merge(perShard, limit, RankedContact.WORST_FIRST);
+        Contact[] ranked = new Contact[best.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = best.poll().contact.toContact();
+        }
+        metrics.record(RepositoryMetrics.Operation.SEARCH, start);
+        return Arrays.asList(ranked);
+    }
+
+    /**
+     * Runs {@code search} on every shard, in parallel on the search pool when there are several, and records
+     * the contacts it scanned and matched once for the whole search.
+     */
+    private <T> List<T> fanOut(BiFunction<ContactShard, int[], T> search) {
+        int[][] counts = new int[shards.length][2];
+        List<T> results = new ArrayList<>(shards.length);
+        if (shards.length == 1) {
+            results.add(search.apply(shards[0], counts[0]));
+        } else {
+            List<ForkJoinTask<T>> tasks = new ArrayList<>(shards.length - 1);
+            for (int i = 1; i < shards.length; i++) {
+                ContactShard shard = shards[i];
+                int[] shardCounts = counts[i];
+                tasks.add(searchPool.submit(() -> search.apply(shard, shardCounts)));
+            }
+            // The calling thread takes the first shard instead of idling until the others finish.
+            results.add(search.apply(shards[0], counts[0]));
+            for (ForkJoinTask<T> task : tasks) {
+                results.add(task.join());
+            }
+        }
+        int scanned = 0;
+        int matched = 0;
+        for (int[] shardCounts : counts) {
+            scanned += shardCounts[0];
+            matched += shardCounts[1];
+        }
+        metrics.search(scanned, matched);
+        return results;
+    }
+
+    /** Keeps the {@code capacity} best items in {@code queue}, whose head is its worst item. */
+    private static <T> void offer(PriorityQueue<T> queue, T item, int capacity, Comparator<T> worstFirst) {
+        if (queue.size() < capacity) {
+            queue.add(item);
+        } else if (worstFirst.compare(item, queue.peek()) > 0) {
+            queue.poll();
+            queue.add(item);
+        }
+    }
+
+    private static <T> PriorityQueue<T> merge(List<PriorityQueue<T>> queues, int capacity, Comparator<T> worstFirst) {
+        PriorityQueue<T> merged = queues.get(0);
+        for (int i = 1; i < queues.size(); i++) {
+            for (T item : queues.get(i)) {
+                offer(merged, item, capacity, worstFirst);
+            }
+        }
+        return merged;
+    }
+
+    private void forEachMatch(ContactShard shard, String query, int[] counts, Consumer<StoredContact> action) {
+        String normalizedQuery = query.toLowerCase();
+        if (normalizedQuery.length() < TrigramIndex.GRAM_LENGTH && PackedText.canSearch(query)) {
+            counts[0] += shard.contacts.size();
+            Set<String> movedMatches = new HashSet<>();
+            shard.packedText.forEachMatch(query, normalizedQuery, (id, version) -> {
+                StoredContact contact = shard.contacts.get(id);
+                if (contact == null) {
+                    return;
+                }
+                if (contact.getVersion() != version) {
+                    // Superseded since the scan began; the new version's record may already be behind the scan,
+                    // so decide on the stored version now and skip its record if the scan reaches it.
+                    if (!matches(contact, query, normalizedQuery) || !movedMatches.add(contact.getId())) {
+                        return;
+                    }
+                } else if (!movedMatches.isEmpty() && movedMatches.contains(contact.getId())) {
+                    return;
+                }
+                counts[1]++;
+                action.accept(contact);
+            });
+        } else if (normalizedQuery.length() < TrigramIndex.GRAM_LENGTH) {
+            shard.contacts.forEach(contact -> {
+                counts[0]++;
+                if (matches(contact, query, normalizedQuery)) {
+                    counts[1]++;
+                    action.accept(contact);
+                }
+            });
+        } else {
+            for (String id : shard.trigramIndex.candidates(normalizedQuery)) {
+                counts[0]++;
+                StoredContact contact = shard.contacts.get(id);
+                if (contact != null && matches(contact, query, normalizedQuery)) {
+                    counts[1]++;
+                    action.accept(contact);
+                }
+            }
+        }
+    }
+
+    private ContactShard shardFor(String id) {
+        if (shards.length == 1) {
+            return shards[0];
+        }
+        int hash = id.hashCode();
+        return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+    }
+
+    private StoredContact get(String id) {
+        return shardFor(id).contacts.get(id);
+    }
+
+    private void lockShared(ContactShard shard) {
+        long start = System.nanoTime();
+        shard.batchLock.readLock().lock();
+        metrics.lockWait(false, System.nanoTime() - start);
+    }
+
+    /**
+     * Takes the batch locks of the shards holding the given ids exclusively, in shard order so concurrent
+     * batches cannot deadlock. Uniqueness is guarded by key reservations, not by these locks.
+     */
+    private <T> List<ContactShard> lockExclusive(Collection<T> batch, Function<T, String> idOf) {
+        if (shards.length == 1) {
+            return lockAll();
+        }
+        boolean[] touched = new boolean[shards.length];
+        for (T item : batch) {
+            String id = idOf.apply(item);
+            if (id != null) {
+                touched[shardFor(id).index] = true;
+            }
+        }
+        List<ContactShard> locked = new ArrayList<>();
+        for (ContactShard shard : shards) {
+            if (touched[shard.index]) {
+                lockExclusive(shard);
+                locked.add(shard);
+            }
+        }
+        return locked;
+    }
+
+    private List<ContactShard> lockAll() {
+        for (ContactShard shard : shards) {
+            lockExclusive(shard);
+        }
+        return Arrays.asList(shards);
+    }
+
+    private void lockExclusive(ContactShard shard) {
+        long start = System.nanoTime();
+        shard.batchLock.writeLock().lock();
+        metrics.lockWait(true, System.nanoTime() - start);
+    }
+
+    private static void unlockExclusive(List<ContactShard> locked) {
+        for (ContactShard shard : locked) {
+            shard.batchLock.writeLock().unlock();
+        }
+    }
+
+    // The helpers below return the journal position of the applied mutation, or -1 if nothing was applied.
+
+    private long put(ContactShard shard, Contact contact) {
+        long[] position = new long[1];
+        StoredContact[] replaced = new StoredContact[1];
+        StoredContact current = shard.contacts.compute(contact.getId(), (id, previous) -> {
+            position[0] = journal.logSave(contact);
+            StoredContact next = StoredContact.of(contact, versions.incrementAndGet());
+            changes.record(next.getVersion(), previous, next);
+            updateIndexes(shard, previous, next);
+            replaced[0] = previous;
+            return next;
+        });
+        changed(replaced[0], current);
+        return position[0];
+    }
+
+    private long remove(ContactShard shard, String id) {
+        long[] position = {-1};
+        StoredContact[] removed = new StoredContact[1];
+        shard.contacts.compute(id, (key, previous) -> {
+            if (previous == null) {
+                return null;
+            }
+            position[0] = journal.logDelete(id);
+            changes.record(versions.incrementAndGet(), previous, null);
+            updateIndexes(shard, previous, null);
+            removed[0] = previous;
+            logger.debug("Removed contact {}", id);
+            return null;
+        });
+        if (removed[0] != null) {
+            changed(removed[0], null);
+        }
+        return position[0];
+    }
+
+    private long compareAndSet(ContactShard shard, StoredContact expected, Contact updated) {
+        long[] position = {-1};
+        StoredContact current = shard.contacts.compute(expected.getId(), (id, previous) -> {
+            if (previous == null || previous.getVersion() != expected.getVersion()) {
+                return previous;
+            }
+            position[0] = journal.logSave(updated);
+            StoredContact next = StoredContact.of(updated, versions.incrementAndGet());
+            changes.record(next.getVersion(), previous, next);
+            updateIndexes(shard, previous, next);
+            return next;
+        });
+        if (position[0] >= 0) {
+            changed(expected, current);
+        }
+        return position[0];
+    }
+
+    private void updateIndexes(ContactShard shard, StoredContact previous, StoredContact current) {
+        shard.trigramIndex.update(previous, current);
+        shard.packedText.update(previous, current);
+        for (ContactIndex index : indexes) {
+            index.update(previous, current);
+        }
+    }
+
+    /**
+     * Reserves the keys that {@code contacts} would hold under the enabled uniqueness checks, emails before phones
+     * and each in sorted order so that writers cannot deadlock. Taken after the shard locks and never held while
+     * waiting for one. Null, which try-with-resources skips, when no check is enabled.
+     */
+    private ReservedKeys reserveUnique(Collection<Contact> contacts) {
+        if (!uniqueEmails && !uniquePhones) {
+            return null;
+        }
+        ReservedKeys reserved = new ReservedKeys();
+        for (Contact contact : contacts) {
+            if (uniqueEmails) {
+                addIfPresent(reserved.emails, ExactIndex.normalizeEmail(contact.getEmail()));
+            }
+            if (uniquePhones) {
+                addIfPresent(reserved.phones, ExactIndex.normalizePhone(contact.getPhone()));
+            }
+        }
+        reserved.emails.forEach(emailIndex::reserve);
+        reserved.phones.forEach(phoneIndex::reserve);
+        return reserved;
+    }
+
+    private static void addIfPresent(Set<String> keys, String key) {
+        if (key != null) {
+            keys.add(key);
+        }
+    }
+
+    private final class ReservedKeys implements AutoCloseable {
+        final TreeSet<String> emails = new TreeSet<>();
+        final TreeSet<String> phones = new TreeSet<>();
+
+        @Override
+        public void close() {
+            emails.forEach(emailIndex::release);
+            phones.forEach(phoneIndex::release);
+        }
+    }
+
+    // Only called with the keys of the batch reserved, so no other write can claim them after the check.
+    private void checkUnique(Collection<Contact> batch) {
+        if (uniqueEmails) {
+            checkUnique(batch, emailIndex, "email", contact -> ExactIndex.normalizeEmail(contact.getEmail()));
+        }
+        if (uniquePhones) {
+            checkUnique(batch, phoneIndex, "phone", contact -> ExactIndex.normalizePhone(contact.getPhone()));
+        }
+    }
+
+    private void checkUnique(Collection<Contact> batch, ExactIndex index, String field, Function<Contact, String> keyOf) {
+        Map<String, Contact> latest = new HashMap<>();
+        for (Contact contact : batch) {
+            latest.put(contact.getId(), contact);
+        }
+        Map<String, String> claimed = new HashMap<>();
+        for (Contact contact : latest.values()) {
+            String key = keyOf.apply(contact);
+            if (key == null) {
+                continue;
+            }
+            String other = claimed.putIfAbsent(key, contact.getId());
+            if (other == null) {
+                for (String holder : index.get(key)) {
+                    // Holders changed by this batch give the key up unless their new version keeps it.
+                    if (!holder.equals(contact.getId()) && !latest.containsKey(holder)) {
+                        other = holder;
+                        break;
+                    }
+                }
+            }
+            if (other != null) {
+                throw new DuplicateContactException("Contact with " + field + " " + key + " already exists: " + other);
+            }
+        }
+    }
+
+    // Runs after the write has left its shard's critical section, so the shared completion trie's lock is never
+    // held inside it; changes to one contact may reach the trie out of order, which it tolerates.
+    private void changed(StoredContact previous, StoredContact current) {
+        changes.signal();
+        completions.update(previous, current);
+        notifyChange(previous, current);
+    }
+
+    private void notifyChange(StoredContact previous, StoredContact current) {
+        if (changeListeners.isEmpty()) {
+            return;
+        }
+        Contact before = previous == null ? null : previous.toContact();
+        Contact after = current == null ? null : current.toContact();
+        for (ContactChangeListener listener : changeListeners) {
+            listener.contactChanged(before, after);
+        }
+    }
+
+    /** The rule {@link #search(String)} uses: name or email contains the query ignoring case, or phone contains it. */
+    public static boolean matches(Contact contact, String query) {
+        String normalizedQuery = query.toLowerCase();
+        return containsIgnoreCase(contact.getName(), normalizedQuery) ||
+                (contact.getPhone() != null && contact.getPhone().contains(query)) ||
+                containsIgnoreCase(contact.getEmail(), normalizedQuery);
+    }
+
+    private static boolean matches(StoredContact contact, String query, String normalizedQuery) {
+        return containsIgnoreCase(contact.getName(), normalizedQuery) ||
+                (contact.getPhone() != null && contact.getPhone().contains(query)) ||
+                containsIgnoreCase(contact.getEmail(), normalizedQuery);
+    }
+
+    private static boolean containsIgnoreCase(String field, String normalizedQuery) {
+        return field != null && field.toLowerCase().contains(normalizedQuery);
+    }
+
+    private static final class RankedContact {
+        static final Comparator<RankedContact> WORST_FIRST = (a, b) -> a.score != b.score
+                ? Integer.compare(a.score, b.score)
+                : b.contact.getId().compareTo(a.contact.getId());
+
+        final StoredContact contact;
+        final int score;
+
+        RankedContact(StoredContact contact, int score) {
+            this.contact = contact;
+            this.score = score;
+        }
+
+        static boolean isBetter(StoredContact contact, int score, RankedContact than) {
+            return score != than.score ? score > than.score : contact.getId().compareTo(than.contact.getId()) < 0;
         }
     }
 }
@@ -0,0 +1,246 @@
+package com.addressbook.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The searchable text of a shard's contacts, packed back to back in large byte arrays so that a query which
+ * cannot use the trigram index is one {@link ByteSearch} pass over contiguous memory rather than a lower-casing
+ * and {@code contains} per contact. Each record is the lower-cased name, a NUL, the lower-cased email, a NUL, and
+ * the phone as entered, all UTF-8; a substring of the text is a substring of its UTF-8 bytes.
+ * <p>
+ * Records are appended; a replaced or removed contact leaves its old record behind as garbage until enough has
+ * accumulated to compact. Writers are serialized by a lock. Readers never lock: each chunk publishes its
+ * records through a volatile count, and a reader must look up every record it is given in the store, since
+ * the record may have been superseded meanwhile. Records hold only the id and version of their contact, so the
+ * slab engine still materializes contacts on read alone.
+ */
+class PackedText implements ContactIndex {
+
+    static final int CHUNK_BYTES = 1 << 20;
+    private static final byte SEPARATOR = 0;
+
+    private volatile ByteSearch search = ByteSearch.best();
+    private volatile Chunk[] chunks = {new Chunk(CHUNK_BYTES)};
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock.
+    private final Map<String, Location> locations = new HashMap<>();
+    private long liveBytes;
+    private long deadBytes;
+
+    interface RecordAction {
+        void accept(String id, long version);
+    }
+
+    private static final class Chunk {
+        final byte[] bytes;
+        int[] starts = new int[64];
+        // Offset of the phone, just after the second separator, and the end of each record.
+        int[] phones = new int[64];
+        int[] ends = new int[64];
+        // Null once the record is garbage.
+        String[] ids = new String[64];
+        long[] versions = new long[64];
+        int length;
+        volatile int count;
+
+        Chunk(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+    }
+
+    private static final class Location {
+        final Chunk chunk;
+        final int record;
+
+        Location(Chunk chunk, int record) {
+            this.chunk = chunk;
+            this.record = record;
+        }
+    }
+
+    void setSearch(ByteSearch search) {
+        this.search = search;
+    }
+
+    ByteSearch getSearch() {
+        return search;
+    }
+
+    @Override
+    public void update(StoredContact previous, StoredContact current) {
+        lock.lock();
+        try {
+            if (previous != null) {
+                Location location = locations.remove(previous.getId());
+                if (location != null) {
+                    Chunk chunk = location.chunk;
+                    chunk.ids[location.record] = null;
+                    int size = chunk.ends[location.record] - chunk.starts[location.record];
+                    liveBytes -= size;
+                    deadBytes += size;
+                }
+            }
+            if (current != null) {
+                append(current);
+            }
+            if (deadBytes > CHUNK_BYTES && deadBytes > liveBytes) {
+                compact();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Passes every record whose name or email contains {@code normalizedQuery}, or whose phone contains
+     * {@code query}, to {@code action}, in the order they were written. Only queries accepted by
+     * {@link #canSearch(String)} can be answered from the packed text.
+     */
+    void forEachMatch(String query, String normalizedQuery, RecordAction action) {
+        byte[] lower = normalizedQuery.getBytes(StandardCharsets.UTF_8);
+        byte[] raw = query.equals(normalizedQuery) ? lower : query.getBytes(StandardCharsets.UTF_8);
+        ByteSearch search = this.search;
+        for (Chunk chunk : chunks) {
+            int count = chunk.count;
+            if (count > 0) {
+                scan(chunk, count, lower, raw, search, action);
+            }
+        }
+    }
+
+    private static void scan(Chunk chunk, int count, byte[] lower, byte[] raw, ByteSearch search, RecordAction action) {
+        byte[] bytes = chunk.bytes;
+        int[] starts = chunk.starts;
+        int[] phones = chunk.phones;
+        int[] ends = chunk.ends;
+        String[] ids = chunk.ids;
+        long[] versions = chunk.versions;
+        int limit = ends[count - 1];
+        // Records whose name or email matched; only needed when the phone is matched with different bytes.
+        long[] matched = raw == lower ? null : new long[(count + 63) >>> 6];
+        int position = 0;
+        while (position < limit) {
+            int hit = search.indexOf(bytes, position, limit, lower);
+            if (hit < 0) {
+                break;
+            }
+            int record = recordAt(starts, count, hit);
+            // Records are packed back to back, so a hit in a phone may run on into the next record's name.
+            if (hit < phones[record] || (raw == lower && hit + lower.length <= ends[record])) {
+                String id = ids[record];
+                if (id != null) {
+                    action.accept(id, versions[record]);
+                }
+                if (matched != null) {
+                    matched[record >>> 6] |= 1L << record;
+                }
+                position = ends[record];
+            } else {
+                position = hit + 1;
+            }
+        }
+        if (matched == null) {
+            return;
+        }
+        for (int record = 0; record < count; record++) {
+            if ((matched[record >>> 6] & (1L << record)) == 0
+                    && search.indexOf(bytes, phones[record], ends[record], raw) >= 0) {
+                String id = ids[record];
+                if (id != null) {
+                    action.accept(id, versions[record]);
+                }
+            }
+        }
+    }
+
+    private static int recordAt(int[] starts, int count, int offset) {
+        int index = Arrays.binarySearch(starts, 0, count, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private void append(StoredContact contact) {
+        byte[] name = lowerBytes(contact.getName());
+        byte[] email = lowerBytes(contact.getEmail());
+        byte[] phone = contact.getPhone() == null ? new byte[0] : contact.getPhone().getBytes(StandardCharsets.UTF_8);
+        byte[] record = new byte[name.length + 1 + email.length + 1 + phone.length];
+        System.arraycopy(name, 0, record, 0, name.length);
+        int phoneOffset = name.length;
+        record[phoneOffset++] = SEPARATOR;
+        System.arraycopy(email, 0, record, phoneOffset, email.length);
+        phoneOffset += email.length;
+        record[phoneOffset++] = SEPARATOR;
+        System.arraycopy(phone, 0, record, phoneOffset, phone.length);
+        append(contact.getId(), contact.getVersion(), record, 0, record.length, phoneOffset);
+    }
+
+    private void append(String id, long version, byte[] source, int from, int size, int phoneOffset) {
+        Chunk[] current = chunks;
+        Chunk chunk = current[current.length - 1];
+        if (chunk.length + size > chunk.bytes.length) {
+            chunk = new Chunk(Math.max(CHUNK_BYTES, size));
+            Chunk[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = chunk;
+            chunks = grown;
+        }
+        int record = chunk.count;
+        if (record == chunk.starts.length) {
+            int capacity = record * 2;
+            chunk.starts = Arrays.copyOf(chunk.starts, capacity);
+            chunk.phones = Arrays.copyOf(chunk.phones, capacity);
+            chunk.ends = Arrays.copyOf(chunk.ends, capacity);
+            chunk.ids = Arrays.copyOf(chunk.ids, capacity);
+            chunk.versions = Arrays.copyOf(chunk.versions, capacity);
+        }
+        int start = chunk.length;
+        System.arraycopy(source, from, chunk.bytes, start, size);
+
+        chunk.starts[record] = start;
+        chunk.phones[record] = start + phoneOffset;
+        chunk.ends[record] = start + size;
+        chunk.ids[record] = id;
+        chunk.versions[record] = version;
+        chunk.length = start + size;
+        // Publishes the record and its bytes to readers.
+        chunk.count = record + 1;
+        locations.put(id, new Location(chunk, record));
+        liveBytes += size;
+    }
+
+    private void compact() {
+        Chunk[] old = chunks;
+        chunks = new Chunk[]{new Chunk(CHUNK_BYTES)};
+        locations.clear();
+        liveBytes = 0;
+        deadBytes = 0;
+        for (Chunk chunk : old) {
+            for (int i = 0; i < chunk.count; i++) {
+                if (chunk.ids[i] != null) {
+                    int start = chunk.starts[i];
+                    append(chunk.ids[i], chunk.versions[i], chunk.bytes, start, chunk.ends[i] - start,
+                            chunk.phones[i] - start);
+                }
+            }
+        }
+    }
+
+    long estimatedBytes() {
+        long bytes = 0;
+        for (Chunk chunk : chunks) {
+            // Offsets, version and id reference per record; the ids themselves are shared with the location map.
+            bytes += chunk.bytes.length + chunk.starts.length * (3L * Integer.BYTES + Long.BYTES + 8);
+        }
+        return bytes;
+    }
+
+    static boolean canSearch(String query) {
+        return !query.isEmpty() && query.indexOf(SEPARATOR) < 0;
+    }
+
+    private static byte[] lowerBytes(String field) {
+        return field == null ? new byte[0] : field.toLowerCase().getBytes(StandardCharsets.UTF_8);
+    }
+}
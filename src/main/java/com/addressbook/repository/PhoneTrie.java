@@ -0,0 +1,158 @@
+package com.addressbook.repository;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Digit trie over normalized phone numbers, read either forwards (prefix lookups) or reversed (suffix
+ * lookups). A lookup walks down the query's digits and then visits only the subtree below, in digit order, so
+ * its cost follows the number of matches rather than the number of contacts.
+ * <p>
+ * Writers are serialized by the trie's lock; readers never lock. Children are published through atomic
+ * arrays, and nodes emptied by a delete are unlinked, so a concurrent reader may still pass through one and
+ * must verify what it finds.
+ */
+class PhoneTrie implements ContactIndex {
+
+    private static final int DIGITS = 10;
+
+    private final boolean reversed;
+    private final Node root = new Node(null, -1);
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private static final class Node {
+        final Node parent;
+        final int digit;
+        volatile AtomicReferenceArray<Node> children;
+        // Ids of the contacts whose number ends at this node, null if there are none.
+        volatile Set<String> ids;
+
+        Node(Node parent, int digit) {
+            this.parent = parent;
+            this.digit = digit;
+        }
+    }
+
+    PhoneTrie(boolean reversed) {
+        this.reversed = reversed;
+    }
+
+    String keyOf(StoredContact contact) {
+        String digits = reversed ? ExactIndex.digits(contact.getPhone()) : ExactIndex.normalizePhone(contact.getPhone());
+        return digits == null || !reversed ? digits : new StringBuilder(digits).reverse().toString();
+    }
+
+    @Override
+    public void update(StoredContact previous, StoredContact current) {
+        String oldKey = previous == null ? null : keyOf(previous);
+        String newKey = current == null ? null : keyOf(current);
+        if (oldKey == null ? newKey == null : oldKey.equals(newKey)) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (newKey != null) {
+                insert(newKey, current.getId());
+            }
+            if (oldKey != null) {
+                remove(oldKey, previous.getId());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Passes the ids of contacts whose key starts with {@code digits} to {@code action}, in key order, until
+     * it has accepted {@code limit} of them; {@code action} returns false for ids it rejects on verification.
+     */
+    void visit(String digits, int limit, Predicate<String> action) {
+        Node node = root;
+        for (int i = 0; i < digits.length() && node != null; i++) {
+            AtomicReferenceArray<Node> children = node.children;
+            node = children == null ? null : children.get(digits.charAt(i) - '0');
+        }
+        if (node != null && limit > 0) {
+            visit(node, action, new int[]{limit});
+        }
+    }
+
+    private static boolean visit(Node node, Predicate<String> action, int[] remaining) {
+        Set<String> ids = node.ids;
+        if (ids != null) {
+            for (String id : ids) {
+                if (action.test(id) && --remaining[0] == 0) {
+                    return false;
+                }
+            }
+        }
+        AtomicReferenceArray<Node> children = node.children;
+        if (children != null) {
+            for (int digit = 0; digit < DIGITS; digit++) {
+                Node child = children.get(digit);
+                if (child != null && !visit(child, action, remaining)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void insert(String key, String id) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            int digit = key.charAt(i) - '0';
+            AtomicReferenceArray<Node> children = node.children;
+            if (children == null) {
+                children = new AtomicReferenceArray<>(DIGITS);
+                node.children = children;
+            }
+            Node child = children.get(digit);
+            if (child == null) {
+                child = new Node(node, digit);
+                children.set(digit, child);
+            }
+            node = child;
+        }
+        if (node.ids == null) {
+            node.ids = ConcurrentHashMap.newKeySet(1);
+        }
+        node.ids.add(id);
+    }
+
+    private void remove(String key, String id) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            AtomicReferenceArray<Node> children = node.children;
+            node = children == null ? null : children.get(key.charAt(i) - '0');
+        }
+        if (node == null || node.ids == null) {
+            return;
+        }
+        node.ids.remove(id);
+        if (node.ids.isEmpty()) {
+            node.ids = null;
+        }
+        while (node.parent != null && node.ids == null && isLeaf(node)) {
+            node.parent.children.set(node.digit, null);
+            node = node.parent;
+        }
+    }
+
+    private static boolean isLeaf(Node node) {
+        AtomicReferenceArray<Node> children = node.children;
+        if (children == null) {
+            return true;
+        }
+        for (int digit = 0; digit < DIGITS; digit++) {
+            if (children.get(digit) != null) {
+                return false;
+            }
+        }
+        node.children = null;
+        return true;
+    }
+}
@@ -0,0 +1,55 @@
+package com.addressbook.repository;
+
+/**
+ * Relevance of a search match. The kind of match decides first (the whole field, a prefix of it, a prefix of
+ * one of its words, anywhere inside it), then the field it was found in (name, then email, then phone); a
+ * contact scores as its best field. Scoring compares characters in place and allocates nothing.
+ */
+final class Relevance {
+
+    static final int NONE = 0;
+
+    private static final int SUBSTRING = 1;
+    private static final int WORD_PREFIX = 2;
+    private static final int PREFIX = 3;
+    private static final int EXACT = 4;
+
+    private static final int PHONE = 0;
+    private static final int EMAIL = 1;
+    private static final int NAME = 2;
+    private static final int FIELDS = 3;
+
+    private Relevance() {
+    }
+
+    /** Higher is more relevant; {@link #NONE} if no field contains the query. */
+    static int score(StoredContact contact, String query) {
+        int best = score(contact.getName(), query, true, NAME);
+        best = Math.max(best, score(contact.getEmail(), query, true, EMAIL));
+        return Math.max(best, score(contact.getPhone(), query, false, PHONE));
+    }
+
+    private static int score(String field, String query, boolean ignoreCase, int weight) {
+        int kind = kind(field, query, ignoreCase);
+        return kind == NONE ? NONE : kind * FIELDS + weight;
+    }
+
+    private static int kind(String field, String query, boolean ignoreCase) {
+        if (field == null || query.length() > field.length()) {
+            return NONE;
+        }
+        if (field.regionMatches(ignoreCase, 0, query, 0, query.length())) {
+            return field.length() == query.length() ? EXACT : PREFIX;
+        }
+        int kind = NONE;
+        for (int i = 1; i + query.length() <= field.length(); i++) {
+            if (field.regionMatches(ignoreCase, i, query, 0, query.length())) {
+                if (!Character.isLetterOrDigit(field.charAt(i - 1))) {
+                    return WORD_PREFIX;
+                }
+                kind = SUBSTRING;
+            }
+        }
+        return kind;
+    }
+}
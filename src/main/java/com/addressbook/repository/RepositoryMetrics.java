@@ -0,0 +1,114 @@
+package com.addressbook.repository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for {@link InMemoryContactRepository}. Every meter is created up front so that recording on the hot
+ * path is a map lookup and an atomic update; meters bound to an empty registry are no-ops.
+ */
+final class RepositoryMetrics {
+
+    static final RepositoryMetrics NONE = new RepositoryMetrics(new CompositeMeterRegistry(), null);
+
+    // The heap engine walks every contact to estimate its size, so scrapes reuse a recent estimate.
+    private static final long STORAGE_BYTES_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    enum Operation {
+        FIND("find"), SAVE("save"), SAVE_ALL("saveAll"), UPDATE("update"), UPDATE_ALL("updateAll"),
+        DELETE("delete"), DELETE_ALL("deleteAll"), SEARCH("search"), SEARCH_STREAM("searchStream");
+
+        final String tag;
+
+        Operation(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Map<Operation, Timer> operations = new EnumMap<>(Operation.class);
+    private final Map<Operation, DistributionSummary> batchSizes = new EnumMap<>(Operation.class);
+    private final Timer sharedLockWait;
+    private final Timer exclusiveLockWait;
+    private final DistributionSummary searchScanned;
+    private final DistributionSummary searchMatched;
+
+    private volatile long storageBytes;
+    private volatile long storageBytesNanos;
+
+    RepositoryMetrics(MeterRegistry registry, InMemoryContactRepository repository) {
+        for (Operation operation : Operation.values()) {
+            operations.put(operation, Timer.builder("contacts.repository")
+                    .description("Time spent in repository operations")
+                    .tag("operation", operation.tag)
+                    .register(registry));
+        }
+        for (Operation operation : new Operation[]{Operation.SAVE_ALL, Operation.UPDATE_ALL, Operation.DELETE_ALL}) {
+            batchSizes.put(operation, DistributionSummary.builder("contacts.batch.size")
+                    .description("Contacts per batch operation")
+                    .baseUnit("contacts")
+                    .tag("operation", operation.tag)
+                    .register(registry));
+        }
+        sharedLockWait = lockWait(registry, "shared");
+        exclusiveLockWait = lockWait(registry, "exclusive");
+        searchScanned = DistributionSummary.builder("contacts.search.scanned")
+                .description("Contacts examined per search")
+                .baseUnit("contacts")
+                .register(registry);
+        searchMatched = DistributionSummary.builder("contacts.search.matched")
+                .description("Contacts matched per search")
+                .baseUnit("contacts")
+                .register(registry);
+        if (repository != null) {
+            Gauge.builder("contacts.size", repository, InMemoryContactRepository::size)
+                    .description("Contacts currently stored")
+                    .baseUnit("contacts")
+                    .register(registry);
+            Gauge.builder("contacts.storage.bytes", repository, this::storageBytes)
+                    .description("Estimated bytes retained by the storage engine")
+                    .baseUnit("bytes")
+                    .tag("engine", repository.getStorageEngine())
+                    .register(registry);
+        }
+    }
+
+    void record(Operation operation, long startNanos) {
+        operations.get(operation).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void batch(Operation operation, int size) {
+        batchSizes.get(operation).record(size);
+    }
+
+    void lockWait(boolean exclusive, long nanos) {
+        (exclusive ? exclusiveLockWait : sharedLockWait).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void search(int scanned, int matched) {
+        searchScanned.record(scanned);
+        searchMatched.record(matched);
+    }
+
+    private double storageBytes(InMemoryContactRepository repository) {
+        long now = System.nanoTime();
+        if (storageBytesNanos == 0 || now - storageBytesNanos > STORAGE_BYTES_REFRESH_NANOS) {
+            storageBytes = repository.estimatedStorageBytes();
+            storageBytesNanos = now;
+        }
+        return storageBytes;
+    }
+
+    private static Timer lockWait(MeterRegistry registry, String mode) {
+        return Timer.builder("contacts.lock.wait")
+                .description("Time spent waiting for the batch lock")
+                .tag("mode", mode)
+                .register(registry);
+    }
+}
@@ -0,0 +1,37 @@
+package com.addressbook.repository;
+
+final class ScalarByteSearch implements ByteSearch {
+
+    static final ScalarByteSearch INSTANCE = new ScalarByteSearch();
+
+    private ScalarByteSearch() {
+    }
+
+    @Override
+    public int indexOf(byte[] text, int from, int to, byte[] needle) {
+        if (needle.length == 0) {
+            return from <= to ? from : -1;
+        }
+        byte first = needle[0];
+        for (int i = from, last = to - needle.length; i <= last; i++) {
+            if (text[i] == first && matchesAt(text, i, needle)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    static boolean matchesAt(byte[] text, int offset, byte[] needle) {
+        for (int k = 1; k < needle.length; k++) {
+            if (text[offset + k] != needle[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,429 @@
+package com.addressbook.repository;
+
+import com.addressbook.model.ContactId;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Compact engine for very large address books. Contact versions are appended UTF-8 encoded to large
+ * {@code byte[]} slabs and located through an open-addressing table of slab handles, so the heap holds a
+ * few big arrays instead of several objects per contact; {@link StoredContact}s are only materialized on read.
+ * <p>
+ * Record layout: {@code int record length, long version}, then the id as a kind byte followed by either the
+ * 16 bytes of a canonical UUID or a string, then name, phone and email. Strings are a varint of
+ * {@code length + 1} (0 for null) followed by the bytes. Canonical ids are hashed and compared as two
+ * {@code long}s, so lookups never decode or hash id strings. Records are never modified once written: an
+ * update appends a new record and a delete leaves a tombstone in the table. Once superseded records
+ * outweigh live ones, the live records are copied into fresh slabs.
+ * <p>
+ * Writers are serialized by a lock. Readers never lock: they work from a {@link Generation} captured once,
+ * read handles with volatile semantics and only follow a handle after the record it points to was written.
+ */
+class SlabContactStore implements ContactStore {
+
+    static final int DEFAULT_SLAB_BYTES = 1 << 20;
+
+    private static final long EMPTY = 0;
+    private static final long TOMBSTONE = -1;
+    private static final int MIN_CAPACITY = 16;
+    private static final int RECORD_HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    private static final byte UUID_ID = 0;
+    private static final byte STRING_ID = 1;
+
+    private final int slabBytes;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Generation generation;
+
+    // Written with writeLock held.
+    private volatile int size;
+    private int tombstones;
+    private long liveBytes;
+    private long garbageBytes;
+
+    private static final class Slabs {
+        volatile byte[][] arrays = new byte[4][];
+        // Guarded by writeLock.
+        int count;
+        int tailOffset;
+    }
+
+    private static final class Table {
+        final int[] hashes;
+        final AtomicLongArray handles;
+        final int mask;
+
+        Table(int capacity) {
+            hashes = new int[capacity];
+            handles = new AtomicLongArray(capacity);
+            mask = capacity - 1;
+        }
+    }
+
+    private static final class Generation {
+        final Table table;
+        final Slabs slabs;
+
+        Generation(Table table, Slabs slabs) {
+            this.table = table;
+            this.slabs = slabs;
+        }
+    }
+
+    SlabContactStore() {
+        this(DEFAULT_SLAB_BYTES);
+    }
+
+    SlabContactStore(int slabBytes) {
+        this.slabBytes = slabBytes;
+        this.generation = new Generation(new Table(MIN_CAPACITY), new Slabs());
+    }
+
+    @Override
+    public StoredContact get(String id) {
+        Generation current = generation;
+        Table table = current.table;
+        Key key = new Key(id);
+        for (int i = key.hash & table.mask; ; i = (i + 1) & table.mask) {
+            long handle = table.handles.get(i);
+            if (handle == EMPTY) {
+                return null;
+            }
+            if (handle != TOMBSTONE && table.hashes[i] == key.hash && key.matches(current.slabs, handle)) {
+                return decode(current.slabs, handle);
+            }
+        }
+    }
+
+    @Override
+    public StoredContact compute(String id, BiFunction<String, StoredContact, StoredContact> remapping) {
+        writeLock.lock();
+        try {
+            Generation current = generation;
+            Key key = new Key(id);
+            int slot = find(current, key);
+            long previousHandle = slot < 0 ? EMPTY : current.table.handles.get(slot);
+            StoredContact previous = slot < 0 ? null : decode(current.slabs, previousHandle);
+
+            StoredContact next = remapping.apply(id, previous);
+            if (next == null) {
+                if (previous != null) {
+                    current.table.handles.set(slot, TOMBSTONE);
+                    size--;
+                    tombstones++;
+                    release(current.slabs, previousHandle);
+                }
+                return null;
+            }
+
+            byte[] record = encode(next);
+            long handle = append(current.slabs, record);
+            liveBytes += record.length;
+            if (previous != null) {
+                current.table.handles.set(slot, handle);
+                release(current.slabs, previousHandle);
+            } else {
+                insert(current.table, key.hash, handle);
+                size++;
+                if ((size + tombstones) * 4L > current.table.hashes.length * 3L) {
+                    generation = new Generation(rehash(current.table, current.table.hashes.length * 2 > size * 4 ?
+                            current.table.hashes.length : current.table.hashes.length * 2), current.slabs);
+                    tombstones = 0;
+                }
+            }
+            if (garbageBytes > liveBytes && garbageBytes > 4L * slabBytes) {
+                compact();
+            }
+            return next;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(Consumer<StoredContact> action) {
+        Generation current = generation;
+        AtomicLongArray handles = current.table.handles;
+        for (int i = 0; i < handles.length(); i++) {
+            long handle = handles.get(i);
+            if (handle > 0) {
+                action.accept(decode(current.slabs, handle));
+            }
+        }
+    }
+
+    @Override
+    public StoredContact[] toArray() {
+        List<StoredContact> contacts = new ArrayList<>();
+        forEach(contacts::add);
+        return contacts.toArray(new StoredContact[0]);
+    }
+
+    @Override
+    public long estimatedBytes() {
+        Generation current = generation;
+        long bytes = (long) current.table.hashes.length * (Integer.BYTES + Long.BYTES);
+        for (byte[] slab : current.slabs.arrays) {
+            if (slab != null) {
+                bytes += slab.length;
+            }
+        }
+        return bytes;
+    }
+
+    // Only called with writeLock held, so the slot it returns stays valid.
+    private static int find(Generation current, Key key) {
+        Table table = current.table;
+        for (int i = key.hash & table.mask; ; i = (i + 1) & table.mask) {
+            long handle = table.handles.get(i);
+            if (handle == EMPTY) {
+                return -1;
+            }
+            if (handle != TOMBSTONE && table.hashes[i] == key.hash && key.matches(current.slabs, handle)) {
+                return i;
+            }
+        }
+    }
+
+    private static void insert(Table table, int hash, long handle) {
+        int i = hash & table.mask;
+        while (table.handles.get(i) > 0) {
+            i = (i + 1) & table.mask;
+        }
+        table.hashes[i] = hash;
+        table.handles.set(i, handle);
+    }
+
+    private static Table rehash(Table table, int capacity) {
+        Table resized = new Table(Math.max(MIN_CAPACITY, capacity));
+        for (int i = 0; i < table.hashes.length; i++) {
+            long handle = table.handles.get(i);
+            if (handle > 0) {
+                insert(resized, table.hashes[i], handle);
+            }
+        }
+        return resized;
+    }
+
+    private void compact() {
+        Generation current = generation;
+        Slabs slabs = new Slabs();
+        Table table = new Table(current.table.hashes.length);
+        long live = 0;
+        for (int i = 0; i < current.table.hashes.length; i++) {
+            long handle = current.table.handles.get(i);
+            if (handle > 0) {
+                byte[] record = copyRecord(current.slabs, handle);
+                insert(table, current.table.hashes[i], append(slabs, record));
+                live += record.length;
+            }
+        }
+        generation = new Generation(table, slabs);
+        tombstones = 0;
+        liveBytes = live;
+        garbageBytes = 0;
+    }
+
+    private void release(Slabs slabs, long handle) {
+        int length = recordLength(slabs, handle);
+        liveBytes -= length;
+        garbageBytes += length;
+    }
+
+    private long append(Slabs slabs, byte[] record) {
+        byte[][] arrays = slabs.arrays;
+        if (slabs.count == 0 || arrays[slabs.count - 1].length - slabs.tailOffset < record.length) {
+            if (slabs.count == arrays.length) {
+                byte[][] grown = new byte[arrays.length * 2][];
+                System.arraycopy(arrays, 0, grown, 0, arrays.length);
+                arrays = grown;
+            }
+            arrays[slabs.count++] = new byte[Math.max(slabBytes, record.length)];
+            slabs.tailOffset = 0;
+            slabs.arrays = arrays;
+        }
+        int slab = slabs.count - 1;
+        System.arraycopy(record, 0, arrays[slab], slabs.tailOffset, record.length);
+        long handle = (((long) slab << 32) | slabs.tailOffset) + 1;
+        slabs.tailOffset += record.length;
+        return handle;
+    }
+
+    private static byte[] encode(StoredContact contact) {
+        byte[] id = contact.hasUuidId() ? null : bytes(contact.getId());
+        byte[][] fields = {bytes(contact.getName()), bytes(contact.getPhone()), bytes(contact.getEmail())};
+        int length = RECORD_HEADER_BYTES + 1 + (id == null ? 2 * Long.BYTES : varIntLength(id.length + 1) + id.length);
+        for (byte[] field : fields) {
+            length += varIntLength(field == null ? 0 : field.length + 1) + (field == null ? 0 : field.length);
+        }
+        byte[] record = new byte[length];
+        putInt(record, 0, length);
+        putLong(record, Integer.BYTES, contact.getVersion());
+        int offset = RECORD_HEADER_BYTES;
+        if (id == null) {
+            record[offset++] = UUID_ID;
+            putLong(record, offset, contact.getIdHigh());
+            putLong(record, offset + Long.BYTES, contact.getIdLow());
+            offset += 2 * Long.BYTES;
+        } else {
+            record[offset++] = STRING_ID;
+            offset = putVarInt(record, offset, id.length + 1);
+            System.arraycopy(id, 0, record, offset, id.length);
+            offset += id.length;
+        }
+        for (byte[] field : fields) {
+            offset = putVarInt(record, offset, field == null ? 0 : field.length + 1);
+            if (field != null) {
+                System.arraycopy(field, 0, record, offset, field.length);
+                offset += field.length;
+            }
+        }
+        return record;
+    }
+
+    private static StoredContact decode(Slabs slabs, long handle) {
+        byte[] slab = slabs.arrays[slabIndex(handle)];
+        int offset = slabOffset(handle);
+        long version = getLong(slab, offset + Integer.BYTES);
+        int[] cursor = {offset + RECORD_HEADER_BYTES + 1};
+        String id;
+        if (slab[offset + RECORD_HEADER_BYTES] == UUID_ID) {
+            id = ContactId.toString(getLong(slab, cursor[0]), getLong(slab, cursor[0] + Long.BYTES));
+            cursor[0] += 2 * Long.BYTES;
+        } else {
+            id = getString(slab, cursor);
+        }
+        String name = getString(slab, cursor);
+        String phone = getString(slab, cursor);
+        String email = getString(slab, cursor);
+        return new StoredContact(id, name, phone, email, version);
+    }
+
+    private static int recordLength(Slabs slabs, long handle) {
+        return getInt(slabs.arrays[slabIndex(handle)], slabOffset(handle));
+    }
+
+    private static byte[] copyRecord(Slabs slabs, long handle) {
+        byte[] record = new byte[recordLength(slabs, handle)];
+        System.arraycopy(slabs.arrays[slabIndex(handle)], slabOffset(handle), record, 0, record.length);
+        return record;
+    }
+
+    private static int slabIndex(long handle) {
+        return (int) ((handle - 1) >>> 32);
+    }
+
+    private static int slabOffset(long handle) {
+        return (int) (handle - 1);
+    }
+
+    /** A looked-up id, hashed once: canonical ids from their two longs, other ids from their string. */
+    private static final class Key {
+        final String id;
+        final boolean uuid;
+        final long high;
+        final long low;
+        final int hash;
+
+        Key(String id) {
+            this.id = id;
+            this.uuid = ContactId.isCanonical(id);
+            this.high = uuid ? ContactId.high(id) : 0;
+            this.low = uuid ? ContactId.low(id) : 0;
+            if (uuid) {
+                this.hash = ContactIdTable.hash(high, low);
+            } else {
+                int h = id.hashCode() * 0x9E3779B9;
+                this.hash = h ^ (h >>> 16);
+            }
+        }
+
+        boolean matches(Slabs slabs, long handle) {
+            byte[] slab = slabs.arrays[slabIndex(handle)];
+            int offset = slabOffset(handle) + RECORD_HEADER_BYTES;
+            if (uuid) {
+                return slab[offset] == UUID_ID && getLong(slab, offset + 1) == high
+                        && getLong(slab, offset + 1 + Long.BYTES) == low;
+            }
+            int[] cursor = {offset + 1};
+            return slab[offset] == STRING_ID && id.equals(getString(slab, cursor));
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String getString(byte[] slab, int[] cursor) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = slab[cursor[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        if (value == 0) {
+            return null;
+        }
+        String s = new String(slab, cursor[0], value - 1, StandardCharsets.UTF_8);
+        cursor[0] += value - 1;
+        return s;
+    }
+
+    private static int varIntLength(int value) {
+        int length = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    private static int putVarInt(byte[] target, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            target[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static void putInt(byte[] target, int offset, int value) {
+        for (int i = 0; i < Integer.BYTES; i++) {
+            target[offset + i] = (byte) (value >>> (8 * (Integer.BYTES - 1 - i)));
+        }
+    }
+
+    private static void putLong(byte[] target, int offset, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            target[offset + i] = (byte) (value >>> (8 * (Long.BYTES - 1 - i)));
+        }
+    }
+
+    private static int getInt(byte[] source, int offset) {
+        int value = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            value = (value << 8) | (source[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static long getLong(byte[] source, int offset) {
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (source[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
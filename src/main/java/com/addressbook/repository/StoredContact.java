@@ -0,0 +1,89 @@
+package com.addressbook.repository;
+
+import com.addressbook.model.Contact;
+import com.addressbook.model.ContactId;
+import com.addressbook.model.JsonFragment;
+import com.addressbook.model.JsonFragmentCache;
+
+/**
+ * Immutable version of a contact as held by the repository. Every write installs a new
+ * instance with a repository-wide unique, increasing version, so readers never observe a
+ * partially applied update and a version is never reused after a delete.
+ * <p>
+ * Canonical UUID ids are also kept as two longs so the id tables can match entries without
+ * hashing or comparing strings. The JSON encoding of the version is cached on it the first time a
+ * contact read from it is written to a response.
+ */
+final class StoredContact implements JsonFragmentCache {
+
+    private final String id;
+    private final String name;
+    private final String phone;
+    private final String email;
+    private final long version;
+    private final boolean uuidId;
+    private final long idHigh;
+    private final long idLow;
+    private volatile JsonFragment jsonFragment;
+
+    StoredContact(String id, String name, String phone, String email, long version) {
+        this.id = id;
+        this.uuidId = ContactId.isCanonical(id);
+        this.idHigh = uuidId ? ContactId.high(id) : 0;
+        this.idLow = uuidId ? ContactId.low(id) : 0;
+        this.name = name;
+        this.phone = phone;
+        this.email = email;
+        this.version = version;
+    }
+
+    static StoredContact of(Contact contact, long version) {
+        return new StoredContact(contact.getId(), contact.getName(), contact.getPhone(), contact.getEmail(), version);
+    }
+
+    String getId() {
+        return id;
+    }
+
+    boolean hasUuidId() {
+        return uuidId;
+    }
+
+    long getIdHigh() {
+        return idHigh;
+    }
+
+    long getIdLow() {
+        return idLow;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getPhone() {
+        return phone;
+    }
+
+    String getEmail() {
+        return email;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    @Override
+    public JsonFragment getJsonFragment() {
+        return jsonFragment;
+    }
+
+    @Override
+    public void setJsonFragment(JsonFragment fragment) {
+        this.jsonFragment = fragment;
+    }
+
+    Contact toContact() {
+        return new Contact(id, name, phone, email, this);
+    }
+}
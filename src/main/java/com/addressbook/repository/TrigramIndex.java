@@ -0,0 +1,109 @@
+package com.addressbook.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index from lower-cased trigrams of name, phone and email to contact ids.
+ * Candidates returned by {@link #candidates(String)} are a superset of the real matches
+ * and must still be verified against the contact itself.
+ * <p>
+ * Updates for one id must be serialized by the caller; updates for different ids and
+ * lookups may run concurrently.
+ */
+class TrigramIndex implements ContactIndex {
+
+    static final int GRAM_LENGTH = 3;
+
+    private final Map<Long, Set<String>> postings = new ConcurrentHashMap<>();
+
+    @Override
+    public void update(StoredContact previous, StoredContact current) {
+        Set<Long> oldGrams = previous == null ? Collections.emptySet() : grams(previous);
+        Set<Long> newGrams = current == null ? Collections.emptySet() : grams(current);
+
+        for (Long gram : newGrams) {
+            if (!oldGrams.contains(gram)) {
+                postings.compute(gram, (key, ids) -> {
+                    Set<String> target = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+                    target.add(current.getId());
+                    return target;
+                });
+            }
+        }
+        for (Long gram : oldGrams) {
+            if (!newGrams.contains(gram)) {
+                postings.computeIfPresent(gram, (key, ids) -> {
+                    ids.remove(previous.getId());
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+
+    Set<String> candidates(String normalizedQuery) {
+        if (normalizedQuery.length() < GRAM_LENGTH) {
+            throw new IllegalArgumentException("Query shorter than " + GRAM_LENGTH + " characters cannot use the trigram index");
+        }
+        long[] grams = distinctGrams(normalizedQuery);
+        List<Set<String>> lists = new ArrayList<>(grams.length);
+        for (long gram : grams) {
+            Set<String> ids = postings.get(gram);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Set<String> smallest = lists.get(0);
+        Set<String> result = new HashSet<>(smallest.size());
+        for (String id : smallest) {
+            boolean inAll = true;
+            for (int i = 1; i < lists.size() && inAll; i++) {
+                inAll = lists.get(i).contains(id);
+            }
+            if (inAll) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private static Set<Long> grams(StoredContact contact) {
+        Set<Long> grams = new HashSet<>();
+        collectGrams(contact.getName(), grams);
+        collectGrams(contact.getPhone(), grams);
+        collectGrams(contact.getEmail(), grams);
+        return grams;
+    }
+
+    private static void collectGrams(String field, Set<Long> grams) {
+        if (field == null) {
+            return;
+        }
+        String normalized = field.toLowerCase();
+        for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+            grams.add(gram(normalized, i));
+        }
+    }
+
+    private static long[] distinctGrams(String normalized) {
+        long[] grams = new long[normalized.length() - GRAM_LENGTH + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = gram(normalized, i);
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    private static long gram(String s, int offset) {
+        return ((long) s.charAt(offset) << 32) | ((long) s.charAt(offset + 1) << 16) | s.charAt(offset + 2);
+    }
+}
@@ -0,0 +1,240 @@
+package com.addressbook.service;
+
+import com.addressbook.exception.DuplicateContactException;
+import com.addressbook.model.ContactRequest;
+import com.addressbook.model.ImportReport;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Imports contacts from an upload of any size. Records are parsed one at a time and created in batches of
+ * {@code addressbook.import.batch-size}; the upload is not read any further while a batch is being inserted,
+ * so a fast client is held back by TCP flow control instead of piling up in memory.
+ * <p>
+ * With {@code addressbook.unique.email} or {@code addressbook.unique.phone} set, a line that would duplicate
+ * a contact is reported as rejected and the rest of its batch is still created.
+ */
+@Service
+public class ContactImportService {
+
+    @Autowired
+    private ContactService contactService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${addressbook.import.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${addressbook.import.max-reported-errors:1000}")
+    private int maxReportedErrors = 1000;
+
+    @Value("${addressbook.import.max-record-bytes:65536}")
+    private int maxRecordBytes = 65536;
+
+    private static final Logger logger = LoggerFactory.getLogger(ContactImportService.class);
+
+    private final ObjectReader csvReader = CsvMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .enable(CsvParser.Feature.TRIM_SPACES, CsvParser.Feature.EMPTY_STRING_AS_NULL)
+            .build()
+            .readerFor(ContactRequest.class)
+            .with(CsvSchema.emptySchema().withHeader());
+
+    /**
+     * One JSON contact per line; blank lines are skipped. A line longer than
+     * {@code addressbook.import.max-record-bytes} is rejected without being held in memory.
+     */
+    public ImportReport importNdjson(InputStream in) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(ContactRequest.class);
+        Batch batch = new Batch();
+        LineReader lines = new LineReader(in, maxRecordBytes);
+        long lineNumber = 0;
+        while (lines.next()) {
+            lineNumber++;
+            if (lines.oversized) {
+                batch.reject(lineNumber, "Record is longer than " + maxRecordBytes + " bytes");
+                continue;
+            }
+            if (lines.isBlank()) {
+                continue;
+            }
+            try {
+                batch.add(lineNumber, reader.readValue(lines.line, 0, lines.length));
+            } catch (JsonProcessingException e) {
+                batch.reject(lineNumber, e.getOriginalMessage());
+            }
+        }
+        return batch.finish();
+    }
+
+    /** CSV with a header row naming the {@code name}, {@code phone} and {@code email} columns. */
+    public ImportReport importCsv(InputStream in) throws IOException {
+        Batch batch = new Batch();
+        try (MappingIterator<ContactRequest> records = csvReader.readValues(in)) {
+            while (true) {
+                long lineNumber = records.getCurrentLocation().getLineNr();
+                try {
+                    if (!records.hasNextValue()) {
+                        break;
+                    }
+                    batch.add(lineNumber, records.nextValue());
+                } catch (JsonProcessingException e) {
+                    batch.reject(lineNumber, e.getOriginalMessage());
+                }
+            }
+        }
+        return batch.finish();
+    }
+
+    private class Batch {
+        private final ImportReport report = new ImportReport();
+        private final List<ContactRequest> pending = new ArrayList<>(batchSize);
+        private final List<Long> pendingLines = new ArrayList<>(batchSize);
+
+        void add(long lineNumber, ContactRequest request) {
+            if (request == null || (isBlank(request.getName()) && isBlank(request.getPhone()) && isBlank(request.getEmail()))) {
+                reject(lineNumber, "Contact has no name, phone or email");
+                return;
+            }
+            pending.add(request);
+            pendingLines.add(lineNumber);
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long lineNumber, String message) {
+            report.setRejected(report.getRejected() + 1);
+            if (report.getErrors().size() < maxReportedErrors) {
+                report.getErrors().add(new ImportReport.ImportError(lineNumber, message));
+            }
+        }
+
+        ImportReport finish() {
+            flush();
+            logger.info("Imported {} contacts, rejected {}", report.getCreated(), report.getRejected());
+            return report;
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            create(0, pending.size());
+            pending.clear();
+            pendingLines.clear();
+        }
+
+        // A duplicate rejects the whole batch without creating anything, so halve it until the offending
+        // lines are on their own.
+        private void create(int from, int to) {
+            try {
+                report.setCreated(report.getCreated() + contactService.createContacts(pending.subList(from, to)).size());
+            } catch (DuplicateContactException e) {
+                if (to - from == 1) {
+                    reject(pendingLines.get(from), e.getMessage());
+                    return;
+                }
+                int middle = (from + to) >>> 1;
+                create(from, middle);
+                create(middle, to);
+            }
+        }
+    }
+
+    /**
+     * Splits UTF-8 input into lines, keeping at most {@code maxBytes} of a line; the rest of a longer line is
+     * skipped as it is read.
+     */
+    private static final class LineReader {
+        private final InputStream in;
+        private final int maxBytes;
+        private final byte[] buffer = new byte[8192];
+        private int position;
+        private int limit;
+        byte[] line = new byte[256];
+        int length;
+        boolean oversized;
+
+        LineReader(InputStream in, int maxBytes) {
+            this.in = in;
+            this.maxBytes = maxBytes;
+        }
+
+        /** Reads the next line, without its line terminator, or returns false at the end of the input. */
+        boolean next() throws IOException {
+            length = 0;
+            oversized = false;
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return read;
+                    }
+                }
+                read = true;
+                int end = position;
+                while (end < limit && buffer[end] != '\n') {
+                    end++;
+                }
+                append(position, end);
+                if (end < limit) {
+                    position = end + 1;
+                    if (length > 0 && line[length - 1] == '\r') {
+                        length--;
+                    }
+                    return true;
+                }
+                position = limit;
+            }
+        }
+
+        boolean isBlank() {
+            for (int i = 0; i < length; i++) {
+                if (line[i] != ' ' && line[i] != '\t' && line[i] != '\r') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void append(int from, int to) {
+            int count = to - from;
+            if (oversized || length + count > maxBytes) {
+                oversized = true;
+                length = 0;
+                return;
+            }
+            if (length + count > line.length) {
+                line = Arrays.copyOf(line, Math.min(maxBytes, Math.max(length + count, 2 * line.length)));
+            }
+            System.arraycopy(buffer, from, line, length, count);
+            length += count;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
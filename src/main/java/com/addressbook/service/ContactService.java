@@ -1,9 +1,13 @@
 package com.addressbook.service;
 
-import com.addressbook.exception.ContactNotFoundException;
+import com.addressbook.constants.Constants;
 import com.addressbook.model.Contact;
+import com.addressbook.model.ContactChanges;
+import com.addressbook.model.ContactId;
+import com.addressbook.model.ContactPage;
 import com.addressbook.model.ContactRequest;
 import com.addressbook.model.ContactUpdateRequest;
+import com.addressbook.model.SearchMode;
 import com.addressbook.repository.InMemoryContactRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,7 +16,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 public class ContactService {
@@ -20,54 +24,87 @@ public class ContactService {
     @Autowired
     private InMemoryContactRepository repository;
 
+    @Autowired
+    private SearchResultCache searchCache;
+
     private static final Logger logger = LoggerFactory.getLogger(ContactService.class);
 
     public List<Contact> createContacts(List<ContactRequest> contactRequests) {
-        List<Contact> createdContacts = new ArrayList<>();
+        List<Contact> createdContacts = new ArrayList<>(contactRequests.size());
         for (ContactRequest request : contactRequests) {
-            String id = UUID.randomUUID().toString();
-            Contact contact = new Contact(id, request.getName(), request.getPhone(), request.getEmail());
-            repository.save(contact);
-            createdContacts.add(contact);
+            String id = ContactId.newId();
+            createdContacts.add(new Contact(id, request.getName(), request.getPhone(), request.getEmail()));
         }
+        repository.saveAll(createdContacts);
         logger.info("Created {} contacts", createdContacts.size());
         return createdContacts;
     }
 
     public List<Contact> updateContacts(List<ContactUpdateRequest> contactUpdateRequests) {
-        List<Contact> updatedContacts = new ArrayList<>();
-        for (ContactUpdateRequest request : contactUpdateRequests) {
-            Contact existingContact = repository.findById(request.getId())
-                    .orElseThrow(() -> new ContactNotFoundException("Contact with ID " + request.getId() + " not found."));
-
-            if (request.getName() != null) {
-                existingContact.setName(request.getName());
-            }
-            if (request.getPhone() != null) {
-                existingContact.setPhone(request.getPhone());
-            }
-            if (request.getEmail() != null) {
-                existingContact.setEmail(request.getEmail());
-            }
-            repository.save(existingContact);
-            updatedContacts.add(existingContact);
-        }
+        List<Contact> updatedContacts = repository.updateAll(contactUpdateRequests, ContactUpdateRequest::getId,
+                ContactService::applyUpdate);
         logger.info("Updated {} contacts", updatedContacts.size());
         return updatedContacts;
     }
 
     public int deleteContacts(List<String> contactIds) {
-        int deletedCount = 0;
-        for (String id : contactIds) {
-            if (repository.deleteById(id)) {
-                deletedCount++;
-            }
-        }
+        int deletedCount = repository.deleteAll(contactIds);
         logger.info("Deleted {} contacts", deletedCount);
         return deletedCount;
     }
 
     public List<Contact> searchContacts(String query) {
-        return repository.search(query);
+        return searchCache.get(query, repository::search);
+    }
+
+    public List<Contact> searchContacts(String query, SearchMode mode, int limit) {
+        switch (mode) {
+            case EMAIL:
+                return repository.findByEmail(query);
+            case PHONE:
+                return repository.findByPhone(query);
+            case PHONE_PREFIX:
+                return repository.findByPhonePrefix(query, limit);
+            case PHONE_SUFFIX:
+                return repository.findByPhoneSuffix(query, limit);
+            case FUZZY:
+                return repository.findByFuzzyName(query, limit);
+            case RANKED:
+                return repository.searchRanked(query, limit);
+            default:
+                return searchContacts(query);
+        }
+    }
+
+    public List<String> autocomplete(String prefix, int limit) {
+        return repository.complete(prefix, limit);
+    }
+
+    public ContactPage searchContacts(String query, String cursor, int limit) {
+        return repository.search(query, cursor, Math.min(limit, Constants.Search.MAX_PAGE_SIZE));
+    }
+
+    public void streamSearchContacts(String query, Consumer<Contact> action) {
+        repository.search(query, action);
+    }
+
+    /** Changes after {@code since}, or none and the latest sequence number when {@code since} is null. */
+    public ContactChanges changesSince(Long since, int limit) {
+        return repository.changesSince(since != null ? since : repository.lastChangeSequence(), limit);
+    }
+
+    public ContactChanges awaitChanges(long since, int limit, long timeoutMillis) throws InterruptedException {
+        return repository.awaitChanges(since, limit, timeoutMillis);
+    }
+
+    public long lastChangeSequence() {
+        return repository.lastChangeSequence();
+    }
+
+    private static Contact applyUpdate(Contact existing, ContactUpdateRequest request) {
+        return new Contact(existing.getId(),
+                request.getName() != null ? request.getName() : existing.getName(),
+                request.getPhone() != null ? request.getPhone() : existing.getPhone(),
+                request.getEmail() != null ? request.getEmail() : existing.getEmail());
     }
 }
@@ -0,0 +1,239 @@
+package com.addressbook.service;
+
+import com.addressbook.model.Contact;
+import com.addressbook.repository.ContactChangeListener;
+import com.addressbook.repository.InMemoryContactRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of search results, evicting with Caffeine's W-TinyLFU policy under a cap on the estimated
+ * bytes of the cached contacts.
+ * <p>
+ * Each cached or in-flight query is registered under one trigram of the query (or in a short list if it is
+ * shorter than a trigram). A query can only match a contact containing all of its trigrams, so on each write
+ * only the queries registered under a trigram of the old or new version are re-checked, and only those that
+ * match either version are invalidated.
+ * <p>
+ * Concurrent misses for the same query share one search: later callers wait for the running one instead of
+ * scanning again. A write that could change that search's result marks it stale: callers that already joined
+ * still get its result, which was concurrent with the write, but it is not cached and callers arriving after
+ * the write start a fresh search.
+ */
+@Component
+public class SearchResultCache implements ContactChangeListener {
+
+    private static final int GRAM_LENGTH = 3;
+    // Rough per-entry overheads: list slot and Contact object, plus String headers for four fields.
+    private static final int CONTACT_BYTES = 8 + 24 + 4 * 40;
+    private static final int ENTRY_BYTES = 128;
+
+    private final Cache<String, List<Contact>> cache;
+    private final Map<Long, Set<String>> queriesByGram = new ConcurrentHashMap<>();
+    private final Set<String> shortQueries = ConcurrentHashMap.newKeySet();
+    // Number of reasons (cached entry, running searches) each query currently has to be registered.
+    private final Map<String, Integer> registrations = new ConcurrentHashMap<>();
+    private final Map<String, Load> loading = new ConcurrentHashMap<>();
+    private volatile Counter invalidations = Counter.builder("contacts.search.cache.invalidations")
+            .register(new CompositeMeterRegistry());
+    private volatile Counter coalesced = Counter.builder("contacts.search.coalesced")
+            .register(new CompositeMeterRegistry());
+
+    private static final class Load {
+        final CompletableFuture<List<Contact>> result = new CompletableFuture<>();
+        volatile boolean stale;
+    }
+
+    public SearchResultCache() {
+        this(64L * 1024 * 1024);
+    }
+
+    @Autowired
+    public SearchResultCache(@Value("${addressbook.search-cache.max-bytes:67108864}") long maxBytes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String query, List<Contact> results) -> weigh(query, results))
+                .removalListener((String query, List<Contact> results, RemovalCause cause) -> unregister(query))
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+    }
+
+    @Autowired
+    public void setRepository(InMemoryContactRepository repository) {
+        repository.addChangeListener(this);
+    }
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "searchResults");
+        invalidations = Counter.builder("contacts.search.cache.invalidations")
+                .description("Cached searches invalidated by writes")
+                .register(registry);
+        coalesced = Counter.builder("contacts.search.coalesced")
+                .description("Searches answered by an identical search already in flight")
+                .register(registry);
+    }
+
+    /**
+     * Returns the cached result for {@code query}, waits for an identical search already running, or runs
+     * {@code search} and caches its result.
+     */
+    public List<Contact> get(String query, Function<String, List<Contact>> search) {
+        List<Contact> cached = cache.getIfPresent(query);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Registered before the load is published, so any write from now on sees and can mark it.
+        register(query);
+        Load load = new Load();
+        Load running = loading.compute(query, (key, current) -> current != null && !current.stale ? current : load);
+        if (running != load) {
+            unregister(query);
+            coalesced.increment();
+            try {
+                return running.result.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            List<Contact> results = Collections.unmodifiableList(search.apply(query));
+            load.result.complete(results);
+            if (!load.stale) {
+                register(query);
+                cache.put(query, results);
+                // A write may have marked this load stale after the check above but before its invalidation
+                // could see the entry; drop the entry in that case.
+                if (load.stale) {
+                    cache.invalidate(query);
+                }
+            }
+            return results;
+        } catch (Throwable t) {
+            load.result.completeExceptionally(t);
+            throw t;
+        } finally {
+            loading.remove(query, load);
+            unregister(query);
+        }
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void contactChanged(Contact previous, Contact current) {
+        if (registrations.isEmpty()) {
+            return;
+        }
+        for (String query : shortQueries) {
+            invalidateIfAffected(query, previous, current);
+        }
+        forEachRegisteredQuery(previous, query -> invalidateIfAffected(query, previous, current));
+        forEachRegisteredQuery(current, query -> invalidateIfAffected(query, previous, current));
+    }
+
+    private void invalidateIfAffected(String query, Contact previous, Contact current) {
+        if ((previous == null || !InMemoryContactRepository.matches(previous, query))
+                && (current == null || !InMemoryContactRepository.matches(current, query))) {
+            return;
+        }
+        Load load = loading.get(query);
+        if (load != null) {
+            load.stale = true;
+        }
+        if (cache.asMap().remove(query) != null) {
+            invalidations.increment();
+        }
+    }
+
+    private void forEachRegisteredQuery(Contact contact, Consumer<String> action) {
+        if (contact == null) {
+            return;
+        }
+        for (String field : new String[]{contact.getName(), contact.getPhone(), contact.getEmail()}) {
+            if (field == null) {
+                continue;
+            }
+            String normalized = field.toLowerCase();
+            for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+                Set<String> queries = queriesByGram.get(gram(normalized, i));
+                if (queries != null) {
+                    queries.forEach(action);
+                }
+            }
+        }
+    }
+
+    private void register(String query) {
+        registrations.compute(query, (key, count) -> {
+            if (count == null) {
+                String normalized = key.toLowerCase();
+                if (normalized.length() < GRAM_LENGTH) {
+                    shortQueries.add(key);
+                } else {
+                    queriesByGram.computeIfAbsent(gram(normalized, 0), gram -> ConcurrentHashMap.newKeySet()).add(key);
+                }
+                return 1;
+            }
+            return count + 1;
+        });
+    }
+
+    private void unregister(String query) {
+        registrations.computeIfPresent(query, (key, count) -> {
+            if (count > 1) {
+                return count - 1;
+            }
+            String normalized = key.toLowerCase();
+            if (normalized.length() < GRAM_LENGTH) {
+                shortQueries.remove(key);
+            } else {
+                queriesByGram.computeIfPresent(gram(normalized, 0), (gram, queries) -> {
+                    queries.remove(key);
+                    return queries.isEmpty() ? null : queries;
+                });
+            }
+            return null;
+        });
+    }
+
+    private static int weigh(String query, List<Contact> results) {
+        long bytes = ENTRY_BYTES + 2L * query.length();
+        for (Contact contact : results) {
+            bytes += CONTACT_BYTES + length(contact.getId()) + length(contact.getName())
+                    + length(contact.getPhone()) + length(contact.getEmail());
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static long gram(String s, int offset) {
+        return ((long) s.charAt(offset) << 32) | ((long) s.charAt(offset + 1) << 16) | s.charAt(offset + 2);
+    }
+}
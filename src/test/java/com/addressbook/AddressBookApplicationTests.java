@@ -1,13 +1,49 @@
 package com.addressbook;
 
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 class AddressBookApplicationTests {
 
+	@Autowired
+	@Qualifier("applicationTaskExecutor")
+	private AsyncTaskExecutor taskExecutor;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	@DisplayName("Should run many streamed responses at once whether or not threads are virtual")
+	void shouldRunConcurrentStreams() throws Exception {
+		int streams = 50;
+		CountDownLatch started = new CountDownLatch(streams);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			for (int i = 0; i < streams; i++) {
+				taskExecutor.execute(() -> {
+					started.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				});
+			}
+			assertTrue(started.await(10, TimeUnit.SECONDS), "Blocked streams should not queue behind each other.");
+		} finally {
+			release.countDown();
+		}
+	}
+
 }
@@ -0,0 +1,63 @@
+package com.addressbook;
+
+import com.addressbook.constants.Constants;
+import com.addressbook.controller.ContactController;
+import com.addressbook.controller.ReactiveContactController;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "addressbook.unique.email=true")
+@ActiveProfiles(Constants.Profiles.REACTIVE)
+class ReactiveApplicationTests {
+
+	@Autowired
+	private ReactiveWebServerApplicationContext context;
+
+	@Autowired
+	private WebTestClient client;
+
+	@Test
+	void servesTheApiFromWebFluxOnNetty() {
+		assertInstanceOf(NettyWebServer.class, context.getWebServer(), "The reactive profile should run on Netty.");
+		assertEquals(1, context.getBeanNamesForType(ReactiveContactController.class).length);
+		assertEquals(0, context.getBeanNamesForType(ContactController.class).length,
+				"The Spring MVC controller should not be registered.");
+
+		client.post().uri(Constants.RequestMapping.CREATE_CONTACT)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("[{\"name\":\"Reactive Ann\",\"phone\":\"555\",\"email\":\"ann@example.com\"}]")
+				.exchange()
+				.expectStatus().isCreated();
+		client.post().uri(Constants.RequestMapping.SEARCH_CONTACT)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"query\":\"reactive\"}")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$[0].name").isEqualTo("Reactive Ann");
+	}
+
+	@Test
+	void reportsAFailedCreateWithItsOwnStatus() {
+		String body = "[{\"name\":\"Bo Conflict\",\"email\":\"bo@example.com\"}]";
+		client.post().uri(Constants.RequestMapping.CREATE_CONTACT)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(body)
+				.exchange()
+				.expectStatus().isCreated();
+		client.post().uri(Constants.RequestMapping.CREATE_CONTACT)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(body)
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.CONFLICT);
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.addressbook.controller;
+
+import com.addressbook.model.Contact;
+import com.addressbook.model.JsonFragment;
+import com.addressbook.model.JsonFragmentCache;
+import com.addressbook.repository.InMemoryContactRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedContactSerializerTest {
+
+    private final ObjectMapper plain = new ObjectMapper();
+    private final ObjectMapper cached = new ObjectMapper().registerModule(CachedContactSerializer.module());
+
+    private static String json(ObjectMapper mapper, Object value) throws Exception {
+        return new String(mapper.writeValueAsBytes(value), StandardCharsets.UTF_8);
+    }
+
+    private static final class Cache implements JsonFragmentCache {
+        JsonFragment fragment;
+
+        @Override
+        public JsonFragment getJsonFragment() {
+            return fragment;
+        }
+
+        @Override
+        public void setJsonFragment(JsonFragment fragment) {
+            this.fragment = fragment;
+        }
+    }
+
+    @Test
+    @DisplayName("Should write the same JSON as the bean serializer and reuse it")
+    void shouldCacheAndReuseFragments() throws Exception {
+        Cache cache = new Cache();
+        Contact contact = new Contact("1", "Zoë \"Z\" Ng", null, "zoe@example.com", cache);
+
+        String first = json(cached, contact);
+        assertEquals(json(plain, contact), first);
+        JsonFragment fragment = cache.getJsonFragment();
+        assertNotNull(fragment, "The first write should cache the encoding.");
+
+        Contact again = new Contact("1", "Zoë \"Z\" Ng", null, "zoe@example.com", cache);
+        List<Contact> list = Arrays.asList(again, new Contact("2", "Bo", "555", null));
+        assertEquals(json(plain, list), json(cached, list));
+        assertSame(fragment, cache.getJsonFragment(), "Later writes should splice the cached bytes.");
+    }
+
+    @Test
+    @DisplayName("Should encode modified, binary and pretty-printed contacts with the bean serializer")
+    void shouldFallBackToBeanSerializer() throws Exception {
+        Cache cache = new Cache();
+        cache.setJsonFragment(new JsonFragment("{\"stale\":true}".getBytes()));
+        Contact contact = new Contact("1", "Ann", null, null, cache);
+
+        ObjectMapper smile = new SmileMapper().registerModule(CachedContactSerializer.module());
+        assertEquals(contact, smile.readValue(smile.writeValueAsBytes(contact), Contact.class));
+        assertTrue(new String(cached.writerWithDefaultPrettyPrinter().writeValueAsBytes(contact), StandardCharsets.UTF_8).contains("\"name\" : \"Ann\""));
+
+        contact.setName("Anna");
+        assertNull(contact.jsonCache(), "Setters should detach the cached version.");
+        assertEquals(json(plain, contact), json(cached, contact));
+    }
+
+    @Test
+    @DisplayName("Should write NDJSON lines from cached fragments")
+    void shouldWriteRootValues() throws Exception {
+        Cache cache = new Cache();
+        Contact contact = new Contact("1", "Ann", null, null, cache);
+        json(cached, contact);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = cached.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            for (int i = 0; i < 2; i++) {
+                generator.writeObject(contact);
+                generator.writeRaw('\n');
+            }
+        }
+        String line = json(plain, contact);
+        assertEquals(line + "\n" + line + "\n", out.toString("UTF-8"));
+    }
+
+    @Test
+    @DisplayName("Should cache per stored version and start over after a save")
+    void shouldInvalidateOnSave() throws Exception {
+        InMemoryContactRepository repository = new InMemoryContactRepository();
+        repository.save(new Contact("1", "Ann", null, null));
+
+        Contact read = repository.findById("1").get();
+        assertEquals(json(plain, read), json(cached, read));
+        JsonFragment fragment = read.jsonCache().getJsonFragment();
+        assertSame(fragment, repository.search("ann").get(0).jsonCache().getJsonFragment(),
+                "Every read of the version should share its encoding.");
+
+        repository.save(new Contact("1", "Anna", null, null));
+        Contact updated = repository.search("ann").get(0);
+        assertNull(updated.jsonCache().getJsonFragment(), "A new version should start without an encoding.");
+        assertEquals("{\"id\":\"1\",\"name\":\"Anna\",\"phone\":null,\"email\":null}", json(cached, updated));
+    }
+}
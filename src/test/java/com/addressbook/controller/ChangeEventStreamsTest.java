@@ -0,0 +1,99 @@
+package com.addressbook.controller;
+
+import com.addressbook.constants.Constants;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "addressbook.changes.max-streams=" + ChangeEventStreamsTest.MAX_STREAMS)
+class ChangeEventStreamsTest {
+
+    // More than the 8 threads of the default task executor that streamed responses run on.
+    static final int MAX_STREAMS = 10;
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @Test
+    @DisplayName("Should hold many change streams open without starving other streamed responses")
+    void shouldServeManyStreams() throws Exception {
+        List<InputStream> streams = new ArrayList<>();
+        try {
+            for (int i = 0; i < MAX_STREAMS; i++) {
+                HttpResponse<InputStream> response = client.send(get(Constants.RequestMapping.CHANGES_STREAM),
+                        HttpResponse.BodyHandlers.ofInputStream());
+                assertEquals(200, response.statusCode());
+                streams.add(response.body());
+            }
+            HttpResponse<String> rejected = client.send(get(Constants.RequestMapping.CHANGES_STREAM),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(503, rejected.statusCode(), "Streams beyond the cap should be turned away.");
+
+            HttpResponse<String> search = client.send(post(Constants.RequestMapping.SEARCH_CONTACT_STREAM, "{\"query\":\"x\"}"),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, search.statusCode(), "Streamed searches should still be served.");
+
+            assertEquals(201, client.send(post(Constants.RequestMapping.CREATE_CONTACT, "[{\"name\":\"Streamed Sam\"}]"),
+                    HttpResponse.BodyHandlers.ofString()).statusCode());
+            List<CompletableFuture<String>> events = new ArrayList<>();
+            for (InputStream stream : streams) {
+                events.add(CompletableFuture.supplyAsync(() -> readEvent(stream)));
+            }
+            for (CompletableFuture<String> event : events) {
+                String data = event.get(10, TimeUnit.SECONDS);
+                assertTrue(data.contains("\"type\":\"created\"") && data.contains("Streamed Sam"), data);
+            }
+        } finally {
+            for (InputStream stream : streams) {
+                stream.close();
+            }
+        }
+    }
+
+    private static String readEvent(InputStream stream) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("data:")) {
+                    return line;
+                }
+            }
+            return "";
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).timeout(Duration.ofSeconds(5)).build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(5))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+}
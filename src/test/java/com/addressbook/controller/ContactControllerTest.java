@@ -1,28 +1,52 @@
 package com.addressbook.controller;
 
+import com.addressbook.constants.Constants;
+import com.addressbook.model.ChangeType;
 import com.addressbook.model.Contact;
+import com.addressbook.model.ContactChange;
+import com.addressbook.model.ContactChanges;
+import com.addressbook.model.ContactPage;
 import com.addressbook.model.ContactRequest;
 import com.addressbook.model.ContactUpdateRequest;
+import com.addressbook.model.ImportReport;
+import com.addressbook.model.SearchMode;
 import com.addressbook.model.SearchRequest;
+import com.addressbook.service.ContactImportService;
 import com.addressbook.service.ContactService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
 
@@ -33,6 +57,15 @@ class ContactControllerTest {
     @Mock
     private ContactService contactService;
 
+    @Mock
+    private ContactImportService contactImportService;
+
+    @Mock
+    private ChangeEventStreams changeEventStreams;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private ContactController contactController;
 
@@ -123,4 +156,143 @@ class ContactControllerTest {
 
         verify(contactService).searchContacts(anyString());
     }
+
+    @Test
+    @DisplayName("Should return one page of results with the next cursor header")
+    void shouldSearchContactsPage() {
+        SearchRequest searchRequest = new SearchRequest("John", 1, null);
+        Contact foundContact = new Contact("1", "John Doe", "1234567890", "john@example.com");
+
+        when(contactService.searchContacts("John", (String) null, 1))
+                .thenReturn(new ContactPage(Collections.singletonList(foundContact), "1"));
+
+        ResponseEntity<List<Contact>> response = contactController.searchContacts(searchRequest);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "HTTP status should be OK.");
+        assertEquals(Collections.singletonList(foundContact), response.getBody());
+        assertEquals("1", response.getHeaders().getFirst(Constants.Search.NEXT_CURSOR_HEADER),
+                "Next cursor should be returned in a header.");
+    }
+
+    @Test
+    @DisplayName("Should use the default page size and omit the cursor header on the last page")
+    void shouldSearchLastPage() {
+        SearchRequest searchRequest = new SearchRequest("John", null, "1");
+
+        when(contactService.searchContacts("John", "1", Constants.Search.DEFAULT_PAGE_SIZE))
+                .thenReturn(new ContactPage(Collections.emptyList(), null));
+
+        ResponseEntity<List<Contact>> response = contactController.searchContacts(searchRequest);
+
+        assertTrue(response.getBody().isEmpty(), "Last page should be empty.");
+        assertNull(response.getHeaders().getFirst(Constants.Search.NEXT_CURSOR_HEADER), "Last page should have no cursor.");
+    }
+
+    @Test
+    @DisplayName("Should stream matches as newline-delimited JSON")
+    void shouldStreamSearchResults() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Contact> action = invocation.getArgument(1);
+            action.accept(new Contact("1", "John Doe", "1234567890", "john@example.com"));
+            action.accept(new Contact("3", "Johnny Bravo", null, "johnny@cartoon.net"));
+            return null;
+        }).when(contactService).streamSearchContacts(eq("John"), any());
+
+        ResponseEntity<StreamingResponseBody> response = contactController.streamSearchContacts(new SearchRequest("John"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length, "Each match should be written on its own line.");
+        assertEquals(new Contact("1", "John Doe", "1234567890", "john@example.com"), objectMapper.readValue(lines[0], Contact.class));
+        assertEquals("Johnny Bravo", objectMapper.readValue(lines[1], Contact.class).getName());
+    }
+
+    @Test
+    @DisplayName("Should pass NDJSON and CSV uploads to the import service")
+    void shouldImportContacts() throws Exception {
+        ImportReport report = new ImportReport(2, 0, Collections.emptyList());
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        when(contactImportService.importNdjson(body)).thenReturn(report);
+        when(contactImportService.importCsv(body)).thenReturn(report);
+
+        assertEquals(report, contactController.importNdjsonContacts(body).getBody());
+        assertEquals(report, contactController.importCsvContacts(body).getBody());
+    }
+
+    @Test
+    @DisplayName("Should dispatch exact searches by mode")
+    void shouldSearchByMode() {
+        SearchRequest searchRequest = new SearchRequest("john@example.com");
+        searchRequest.setMode(SearchMode.EMAIL);
+        List<Contact> found = Collections.singletonList(new Contact("1", "John Doe", "1234567890", "john@example.com"));
+        when(contactService.searchContacts("john@example.com", SearchMode.EMAIL, Integer.MAX_VALUE)).thenReturn(found);
+
+        assertEquals(found, contactController.searchContacts(searchRequest).getBody());
+    }
+
+    @Test
+    @DisplayName("Should pass the limit to phone prefix searches")
+    void shouldSearchByPhonePrefixWithLimit() {
+        SearchRequest searchRequest = new SearchRequest("+1 555", 5, null, SearchMode.PHONE_PREFIX);
+        List<Contact> found = Collections.singletonList(new Contact("1", "John Doe", "+1 555 0100", "john@example.com"));
+        when(contactService.searchContacts("+1 555", SearchMode.PHONE_PREFIX, 5)).thenReturn(found);
+
+        ResponseEntity<List<Contact>> response = contactController.searchContacts(searchRequest);
+
+        assertEquals(found, response.getBody());
+        assertNull(response.getHeaders().getFirst(Constants.Search.NEXT_CURSOR_HEADER), "Phone prefix searches are not paged.");
+    }
+
+    @Test
+    @DisplayName("Should return completions for a prefix")
+    void shouldAutocomplete() {
+        when(contactService.autocomplete("jo", 5)).thenReturn(Arrays.asList("john", "john doe"));
+
+        ResponseEntity<List<String>> response = contactController.autocomplete("jo", 5);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Arrays.asList("john", "john doe"), response.getBody());
+    }
+
+    @Test
+    @DisplayName("Should default ranked searches to one page of results")
+    void shouldDefaultRankedLimit() {
+        SearchRequest searchRequest = new SearchRequest("smith", null, null, SearchMode.RANKED);
+        List<Contact> found = Collections.singletonList(new Contact("1", "John Smith", "1234567890", "john@example.com"));
+        when(contactService.searchContacts("smith", SearchMode.RANKED, Constants.Search.DEFAULT_PAGE_SIZE)).thenReturn(found);
+
+        assertEquals(found, contactController.searchContacts(searchRequest).getBody());
+    }
+
+    @Test
+    @DisplayName("Should return changes, or 410 Gone when the client must resync")
+    void shouldReturnChanges() {
+        ContactChanges changes = new ContactChanges(Collections.singletonList(
+                new ContactChange(8, ChangeType.DELETED, "1", null)), 8, false);
+        when(contactService.changesSince(7L, 100)).thenReturn(changes);
+        when(contactService.changesSince(2L, 100)).thenReturn(new ContactChanges(Collections.emptyList(), 8, true));
+
+        ResponseEntity<ContactChanges> response = contactController.changes(7L, 100);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(changes, response.getBody());
+        assertEquals(HttpStatus.GONE, contactController.changes(2L, 100).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should open change streams from Last-Event-ID, then since, then the latest change")
+    void shouldStreamChanges() {
+        SseEmitter emitter = new SseEmitter();
+        when(changeEventStreams.open(anyLong())).thenReturn(emitter);
+        when(contactService.lastChangeSequence()).thenReturn(9L);
+
+        assertEquals(emitter, contactController.streamChanges(1L, 5L));
+        contactController.streamChanges(1L, null);
+        contactController.streamChanges(null, null);
+
+        verify(changeEventStreams).open(5L);
+        verify(changeEventStreams).open(1L);
+        verify(changeEventStreams).open(9L);
+    }
 }
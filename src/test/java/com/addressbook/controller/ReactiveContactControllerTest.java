@@ -0,0 +1,255 @@
+package com.addressbook.controller;
+
+import com.addressbook.constants.Constants;
+import com.addressbook.exception.ContactNotFoundException;
+import com.addressbook.exception.DuplicateContactException;
+import com.addressbook.model.ChangeType;
+import com.addressbook.model.Contact;
+import com.addressbook.model.ContactChange;
+import com.addressbook.model.ContactChanges;
+import com.addressbook.model.ContactPage;
+import com.addressbook.model.ContactRequest;
+import com.addressbook.model.ContactUpdateRequest;
+import com.addressbook.model.SearchMode;
+import com.addressbook.model.SearchRequest;
+import com.addressbook.service.ContactService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Subscription;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveContactControllerTest {
+
+    @Mock
+    private ContactService contactService;
+
+    @InjectMocks
+    private ReactiveContactController controller;
+
+    @Test
+    @DisplayName("Should create the request body in batches and return every created contact")
+    void shouldCreateContactsInBatches() {
+        ReflectionTestUtils.setField(controller, "batchSize", 2);
+        when(contactService.createContacts(anyList())).thenAnswer(invocation -> {
+            List<ContactRequest> batch = invocation.getArgument(0);
+            List<Contact> created = new ArrayList<>();
+            for (ContactRequest request : batch) {
+                created.add(new Contact("id-" + request.getName(), request.getName(), null, null));
+            }
+            return created;
+        });
+
+        ResponseEntity<List<Contact>> created = controller.createContacts(Flux.just(new ContactRequest("A", null, null),
+                new ContactRequest("B", null, null), new ContactRequest("C", null, null))).block();
+
+        assertEquals(HttpStatus.CREATED, created.getStatusCode());
+        assertEquals(Arrays.asList("id-A", "id-B", "id-C"), ids(created.getBody()), "Every batch's contacts should be returned in order.");
+        verify(contactService, times(2)).createContacts(anyList());
+    }
+
+    @Test
+    @DisplayName("Should fail the whole response when a later batch fails instead of sending a truncated 201")
+    void shouldFailCreateWhenALaterBatchFails() {
+        ReflectionTestUtils.setField(controller, "batchSize", 1);
+        when(contactService.createContacts(anyList()))
+                .thenReturn(Arrays.asList(new Contact("id-A", "A", null, "a@example.com")))
+                .thenThrow(new DuplicateContactException("Contact with email a@example.com already exists: id-A"));
+
+        Mono<ResponseEntity<List<Contact>>> response = controller.createContacts(Flux.just(
+                new ContactRequest("A", null, "a@example.com"), new ContactRequest("B", null, "a@example.com")));
+
+        assertThrows(DuplicateContactException.class, response::block,
+                "The error should reach the exception handler before any status is sent.");
+        verify(contactService, times(2)).createContacts(anyList());
+    }
+
+    @Test
+    @DisplayName("Should update and delete contacts with the same bodies as the MVC controller")
+    void shouldUpdateAndDeleteContacts() {
+        List<ContactUpdateRequest> updates = Arrays.asList(new ContactUpdateRequest("1", "New", null, null));
+        when(contactService.updateContacts(updates)).thenReturn(Arrays.asList(new Contact("1", "New", null, null)));
+        when(contactService.deleteContacts(Arrays.asList("1", "2"))).thenReturn(2);
+
+        assertEquals(Arrays.asList("1"), ids(controller.updateContacts(Mono.just(updates)).block()));
+        assertEquals(Collections.singletonMap("deleted", 2), controller.deleteContacts(Mono.just(Arrays.asList("1", "2"))).block());
+    }
+
+    @Test
+    @DisplayName("Should search, page and rank through the service and stream only on the stream endpoint")
+    void shouldSearchContacts() {
+        doAnswer(invocation -> {
+            Consumer<Contact> action = invocation.getArgument(1);
+            action.accept(new Contact("1", "Ann", null, null));
+            action.accept(new Contact("2", "Anna", null, null));
+            return null;
+        }).when(contactService).streamSearchContacts(eq("ann"), any());
+        when(contactService.searchContacts("ann"))
+                .thenReturn(Arrays.asList(new Contact("1", "Ann", null, null), new Contact("2", "Anna", null, null)));
+        when(contactService.searchContacts("ann", (String) null, 1))
+                .thenReturn(new ContactPage(Arrays.asList(new Contact("1", "Ann", null, null)), "1"));
+        when(contactService.searchContacts("ann", SearchMode.RANKED, Constants.Search.DEFAULT_PAGE_SIZE))
+                .thenReturn(Arrays.asList(new Contact("2", "Anna", null, null)));
+
+        ResponseEntity<Flux<Contact>> plain = search(new SearchRequest("ann", null, null, null));
+        assertEquals(HttpStatus.OK, plain.getStatusCode());
+        assertEquals(Arrays.asList("1", "2"), ids(plain.getBody().collectList().block()));
+        verify(contactService).searchContacts("ann");
+
+        ResponseEntity<Flux<Contact>> paged = search(new SearchRequest("ann", 1, null, null));
+        assertEquals("1", paged.getHeaders().getFirst(Constants.Search.NEXT_CURSOR_HEADER));
+        assertEquals(Arrays.asList("1"), ids(paged.getBody().collectList().block()));
+
+        ResponseEntity<Flux<Contact>> ranked = search(new SearchRequest("ann", null, null, SearchMode.RANKED));
+        assertEquals(Arrays.asList("2"), ids(ranked.getBody().collectList().block()));
+
+        List<Contact> ndjson = controller.streamSearchContacts(Mono.just(new SearchRequest("ann", null, null, null)))
+                .collectList().block();
+        assertEquals(Arrays.asList("1", "2"), ids(ndjson));
+    }
+
+    @Test
+    @DisplayName("Should pause the scan until the subscriber requests more and stop it on cancel")
+    void shouldApplyBackpressureToStreamingSearch() throws InterruptedException {
+        AtomicInteger produced = new AtomicInteger();
+        CountDownLatch stopped = new CountDownLatch(1);
+        AtomicReference<String> thread = new AtomicReference<>();
+        doAnswer(invocation -> {
+            thread.set(Thread.currentThread().getName());
+            Consumer<Contact> action = invocation.getArgument(1);
+            try {
+                for (int i = 0; i < 1000; i++) {
+                    action.accept(new Contact(String.valueOf(i), "Name", null, null));
+                    produced.incrementAndGet();
+                }
+            } finally {
+                stopped.countDown();
+            }
+            return null;
+        }).when(contactService).streamSearchContacts(eq("name"), any());
+
+        List<Contact> received = new ArrayList<>();
+        CountDownLatch first = new CountDownLatch(1);
+        BaseSubscriber<Contact> subscriber = new BaseSubscriber<Contact>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(Contact contact) {
+                received.add(contact);
+                first.countDown();
+            }
+        };
+        controller.streamSearchContacts(Mono.just(new SearchRequest("name", null, null, null))).subscribe(subscriber);
+        assertTrue(first.await(5, TimeUnit.SECONDS), "The first requested match should arrive.");
+        Thread.sleep(100);
+        assertEquals(1, produced.get(), "The scan should wait for demand after the requested match.");
+        assertTrue(thread.get().startsWith("search-stream"),
+                "A waiting scan should not hold a thread of the shared bounded-elastic pool: " + thread.get());
+
+        subscriber.dispose();
+        assertTrue(stopped.await(5, TimeUnit.SECONDS), "Cancelling should end the scan.");
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    @DisplayName("Should deliver every match when the subscriber requests one at a time from another thread")
+    void shouldStreamToASubscriberRequestingFromAnotherThread() {
+        doAnswer(invocation -> {
+            Consumer<Contact> action = invocation.getArgument(1);
+            for (int i = 0; i < 100; i++) {
+                action.accept(new Contact(String.valueOf(i), "Name", null, null));
+            }
+            return null;
+        }).when(contactService).streamSearchContacts(eq("name"), any());
+
+        for (int round = 0; round < 20; round++) {
+            List<Contact> received = controller.streamSearchContacts(Mono.just(new SearchRequest("name", null, null, null)))
+                    .publishOn(Schedulers.parallel(), 1)
+                    .collectList()
+                    .block(Duration.ofSeconds(5));
+            assertEquals(100, received.size(), "Later requests should wake the waiting scan.");
+        }
+    }
+
+    @Test
+    @DisplayName("Should surface service exceptions as errors for the global exception handler")
+    void shouldPropagateExceptions() {
+        List<ContactUpdateRequest> updates = Arrays.asList(new ContactUpdateRequest("9", "X", null, null));
+        when(contactService.updateContacts(updates)).thenThrow(new ContactNotFoundException("Contact not found with id: 9"));
+
+        assertThrows(ContactNotFoundException.class, () -> controller.updateContacts(Mono.just(updates)).block());
+    }
+
+    private ResponseEntity<Flux<Contact>> search(SearchRequest request) {
+        return controller.searchContacts(Mono.just(request)).block();
+    }
+
+    private static List<String> ids(List<Contact> contacts) {
+        List<String> ids = new ArrayList<>();
+        for (Contact contact : contacts) {
+            ids.add(contact.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Should stream changes as server-sent events until a resync is required")
+    void shouldStreamChanges() throws Exception {
+        ContactChange change = new ContactChange(4, ChangeType.UPDATED, "1", new Contact("1", "Ann", null, null));
+        when(contactService.lastChangeSequence()).thenReturn(3L);
+        when(contactService.awaitChanges(eq(3L), anyInt(), anyLong()))
+                .thenReturn(new ContactChanges(Collections.singletonList(change), 4, false));
+        when(contactService.awaitChanges(eq(4L), anyInt(), anyLong()))
+                .thenReturn(new ContactChanges(Collections.emptyList(), 4, false))
+                .thenReturn(new ContactChanges(Collections.emptyList(), 7, true));
+
+        List<ServerSentEvent<Object>> events = controller.streamChanges(null, null).collectList().block();
+
+        assertEquals(4, events.size());
+        assertNull(events.get(0).data(), "The stream should open with a comment.");
+        assertEquals("4", events.get(1).id());
+        assertEquals(Constants.Changes.CHANGE_EVENT, events.get(1).event());
+        assertEquals(change, events.get(1).data());
+        assertNull(events.get(2).data(), "An idle wait should send a heartbeat comment.");
+        assertEquals(Constants.Changes.RESYNC_EVENT, events.get(3).event());
+
+        when(contactService.changesSince(1L, 10)).thenReturn(new ContactChanges(Collections.emptyList(), 7, true));
+        assertEquals(HttpStatus.GONE, controller.changes(1L, 10).block().getStatusCode());
+    }
+}
@@ -0,0 +1,76 @@
+package com.addressbook.controller;
+
+import com.addressbook.constants.Constants;
+import com.addressbook.model.Contact;
+import com.addressbook.model.ContactRequest;
+import com.addressbook.model.SearchRequest;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class WireFormatConfigurationTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    private static final TypeReference<List<Contact>> CONTACTS = new TypeReference<List<Contact>>() {
+    };
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper smile = new SmileMapper();
+    private final ObjectMapper cbor = new CBORMapper();
+
+    @Test
+    @DisplayName("Should accept and produce Smile and CBOR bodies with the JSON schema")
+    void shouldNegotiateBinaryFormats() throws Exception {
+        byte[] request = cbor.writeValueAsBytes(Arrays.asList(new ContactRequest("Wire Format", "555 0199", "wire@example.com")));
+        MvcResult created = mockMvc.perform(post(Constants.RequestMapping.CREATE_CONTACT)
+                        .contentType(MediaType.APPLICATION_CBOR).accept(SMILE).content(request))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(SMILE))
+                .andReturn();
+        List<Contact> contacts = smile.readValue(created.getResponse().getContentAsByteArray(), CONTACTS);
+        assertEquals(1, contacts.size(), "The CBOR body should have been decoded.");
+        assertEquals("Wire Format", contacts.get(0).getName());
+        assertNotNull(contacts.get(0).getId());
+
+        byte[] query = smile.writeValueAsBytes(new SearchRequest("wire format", null, null, null));
+        MvcResult found = mockMvc.perform(post(Constants.RequestMapping.SEARCH_CONTACT)
+                        .contentType(SMILE).accept(MediaType.APPLICATION_CBOR).content(query))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+        assertEquals(contacts, cbor.readValue(found.getResponse().getContentAsByteArray(), CONTACTS));
+    }
+
+    @Test
+    @DisplayName("Should keep JSON as the default format")
+    void shouldDefaultToJson() throws Exception {
+        MvcResult found = mockMvc.perform(post(Constants.RequestMapping.SEARCH_CONTACT)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"query\":\"nobody-matches-this\"}"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+        assertTrue(json.readValue(found.getResponse().getContentAsString(), CONTACTS).isEmpty());
+    }
+}
@@ -0,0 +1,21 @@
+package com.addressbook.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class DuplicateContactExceptionTest {
+
+    @Test
+    @DisplayName("Should have @ResponseStatus annotation with HttpStatus.CONFLICT")
+    void shouldHaveResponseStatusConflict() {
+        ResponseStatus responseStatusAnnotation = DuplicateContactException.class.getAnnotation(ResponseStatus.class);
+        assertNotNull(responseStatusAnnotation, "@ResponseStatus annotation should be present.");
+        assertEquals(HttpStatus.CONFLICT, responseStatusAnnotation.value(), "@ResponseStatus value should be HttpStatus.CONFLICT.");
+        assertEquals("duplicate", new DuplicateContactException("duplicate").getMessage());
+    }
+}
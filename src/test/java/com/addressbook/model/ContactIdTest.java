@@ -0,0 +1,59 @@
+package com.addressbook.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContactIdTest {
+
+    @Test
+    @DisplayName("Should generate unique canonical version 7 UUIDs")
+    void shouldGenerateVersion7Uuids() {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            String id = ContactId.newId();
+            assertTrue(ContactId.isCanonical(id), "Generated id should be canonical: " + id);
+            UUID uuid = UUID.fromString(id);
+            assertEquals(7, uuid.version(), "Generated id should be a version 7 UUID.");
+            assertEquals(2, uuid.variant(), "Generated id should use the IETF variant.");
+            ids.add(id);
+        }
+        assertEquals(10_000, ids.size(), "Generated ids should be unique.");
+    }
+
+    @Test
+    @DisplayName("Should order generated ids by creation time")
+    void shouldBeTimeOrdered() throws InterruptedException {
+        String first = ContactId.newId();
+        Thread.sleep(2);
+        String second = ContactId.newId();
+
+        assertTrue(first.compareTo(second) < 0, "Later ids should sort after earlier ones.");
+    }
+
+    @Test
+    @DisplayName("Should convert between the canonical string and two longs")
+    void shouldRoundTripThroughLongs() {
+        UUID uuid = UUID.randomUUID();
+        String id = uuid.toString();
+
+        assertEquals(uuid.getMostSignificantBits(), ContactId.high(id));
+        assertEquals(uuid.getLeastSignificantBits(), ContactId.low(id));
+        assertEquals(id, ContactId.toString(ContactId.high(id), ContactId.low(id)));
+    }
+
+    @Test
+    @DisplayName("Should only treat lower-case 8-4-4-4-12 hex strings as canonical")
+    void shouldRecognizeCanonicalIds() {
+        assertTrue(ContactId.isCanonical("123e4567-e89b-12d3-a456-426614174000"));
+        assertFalse(ContactId.isCanonical("123E4567-E89B-12D3-A456-426614174000"), "Upper case is not canonical.");
+        assertFalse(ContactId.isCanonical("123e4567e89b12d3a456426614174000"), "Missing dashes are not canonical.");
+        assertFalse(ContactId.isCanonical("1"));
+        assertFalse(ContactId.isCanonical(null));
+    }
+}
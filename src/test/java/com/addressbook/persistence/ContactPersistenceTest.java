@@ -0,0 +1,87 @@
+package com.addressbook.persistence;
+
+import com.addressbook.model.Contact;
+import com.addressbook.repository.InMemoryContactRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContactPersistenceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should recover from a snapshot plus the log records written after it")
+    void shouldRecoverFromSnapshotAndLog() throws IOException {
+        Path walDir = tempDir.resolve("wal");
+        Path snapshotPath = tempDir.resolve("contacts.snapshot");
+
+        InMemoryContactRepository repository = new InMemoryContactRepository();
+        try (WriteAheadLog wal = WriteAheadLog.open(walDir, DurabilityMode.SYNC, 10);
+             ContactPersistence persistence = new ContactPersistence(repository, wal, snapshotPath, 0)) {
+            persistence.start();
+            repository.saveAll(Arrays.asList(
+                    new Contact("1", "Alice Smith", "111", "alice@example.com"),
+                    new Contact("2", "Bob Jones", "222", "bob@example.com")));
+            assertEquals(2, persistence.takeSnapshot());
+
+            repository.deleteById("1");
+            repository.save(new Contact("3", "Charlie Day", "333", "charlie@example.com"));
+            repository.update("2", contact -> new Contact(contact.getId(), "Robert Jones", contact.getPhone(), contact.getEmail()));
+        }
+        assertEquals(1, segmentCount(walDir), "Segments covered by the snapshot should be deleted.");
+
+        InMemoryContactRepository recovered = new InMemoryContactRepository();
+        try (WriteAheadLog wal = WriteAheadLog.open(walDir, DurabilityMode.SYNC, 10);
+             ContactPersistence persistence = new ContactPersistence(recovered, wal, snapshotPath, 0)) {
+            persistence.start();
+
+            assertFalse(recovered.findById("1").isPresent());
+            assertEquals(Optional.of(new Contact("2", "Robert Jones", "222", "bob@example.com")), recovered.findById("2"));
+            assertEquals(Optional.of(new Contact("3", "Charlie Day", "333", "charlie@example.com")), recovered.findById("3"));
+            assertEquals(1, recovered.search("robert").size(), "Recovered contacts should be indexed.");
+
+            recovered.save(new Contact("4", "Dana White", "444", "dana@example.com"));
+        }
+
+        InMemoryContactRepository again = new InMemoryContactRepository();
+        try (WriteAheadLog wal = WriteAheadLog.open(walDir, DurabilityMode.SYNC, 10);
+             ContactPersistence persistence = new ContactPersistence(again, wal, snapshotPath, 0)) {
+            persistence.start();
+            assertEquals(3, again.search("").size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should snapshot on shutdown when no log is configured")
+    void shouldSnapshotOnCloseWithoutLog() throws IOException {
+        Path snapshotPath = tempDir.resolve("contacts.snapshot");
+        InMemoryContactRepository repository = new InMemoryContactRepository();
+        try (ContactPersistence persistence = new ContactPersistence(repository, null, snapshotPath, 0)) {
+            persistence.start();
+            repository.save(new Contact("1", "Alice Smith", "111", "alice@example.com"));
+        }
+
+        InMemoryContactRepository recovered = new InMemoryContactRepository();
+        try (ContactPersistence persistence = new ContactPersistence(recovered, null, snapshotPath, 0)) {
+            persistence.start();
+            assertTrue(recovered.findById("1").isPresent());
+        }
+    }
+
+    private static long segmentCount(Path path) throws IOException {
+        try (Stream<Path> files = Files.list(path)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.addressbook.persistence;
+
+import com.addressbook.model.Contact;
+import com.addressbook.repository.InMemoryContactRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should round-trip contacts including null and non-ASCII fields")
+    void shouldRoundTripContacts() throws IOException {
+        InMemoryContactRepository repository = new InMemoryContactRepository();
+        List<Contact> contacts = new ArrayList<>();
+        for (int i = 0; i < 40_000; i++) {
+            contacts.add(new Contact("id-" + i, i % 7 == 0 ? null : "Zoë Ñúñez 李 " + i, "555-" + i,
+                    i % 5 == 0 ? "" : "user" + i + "@example.com"));
+        }
+        contacts.add(new Contact("emoji", "😀 smile", "1", "unpaired\uD800@example.com"));
+        repository.saveAll(contacts);
+        Path path = tempDir.resolve("contacts.snapshot");
+
+        SnapshotFile.write(path, repository.snapshot());
+        SnapshotFile.Contents contents = SnapshotFile.read(path);
+
+        assertEquals(0, contents.getPosition());
+        assertEquals(contacts.size(), contents.getContacts().size());
+        HashSet<Contact> expected = new HashSet<>(contacts);
+        expected.remove(contacts.get(contacts.size() - 1));
+        expected.add(new Contact("emoji", "😀 smile", "1", "unpaired?@example.com"));
+        assertEquals(expected, new HashSet<>(contents.getContacts()));
+        assertFalse(Files.exists(tempDir.resolve("contacts.snapshot.tmp")), "Temporary file should be moved into place.");
+    }
+
+    @Test
+    @DisplayName("Should load an empty snapshot")
+    void shouldLoadEmptySnapshot() throws IOException {
+        Path path = tempDir.resolve("contacts.snapshot");
+
+        SnapshotFile.write(path, new InMemoryContactRepository().snapshot());
+
+        assertTrue(SnapshotFile.read(path).getContacts().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject a file that is not a snapshot")
+    void shouldRejectForeignFile() throws IOException {
+        Path path = tempDir.resolve("contacts.snapshot");
+        Files.write(path, new byte[64]);
+
+        assertThrows(IOException.class, () -> SnapshotFile.read(path));
+    }
+}
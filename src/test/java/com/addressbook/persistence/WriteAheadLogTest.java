@@ -0,0 +1,178 @@
+package com.addressbook.persistence;
+
+import com.addressbook.model.Contact;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(DurabilityMode.class)
+    @DisplayName("Should replay saves and deletes in the order they were logged")
+    void shouldReplayRecordsInOrder(DurabilityMode mode) throws IOException {
+        Path path = tempDir.resolve("wal");
+        try (WriteAheadLog wal = WriteAheadLog.open(path, mode, 10)) {
+            assertEquals(0, wal.replay(contact -> fail("Empty log should not replay"), id -> fail("Empty log should not replay")));
+            wal.logSave(new Contact("1", "Alice Smith", "111", "alice@example.com"));
+            wal.logSave(new Contact("2", "Bøb Jönes", null, "bob@example.com"));
+            wal.logDelete("1");
+            wal.awaitDurable(wal.logSave(new Contact("2", "Bob Jones", "222", "bob@example.com")));
+        }
+
+        Map<String, Contact> restored = replay(path);
+
+        assertEquals(1, restored.size());
+        assertEquals(new Contact("2", "Bob Jones", "222", "bob@example.com"), restored.get("2"));
+    }
+
+    @Test
+    @DisplayName("Should keep null and non-ASCII fields intact")
+    void shouldRoundTripFields() throws IOException {
+        Path path = tempDir.resolve("wal");
+        Contact contact = new Contact("1", "Zoë Ñúñez 李", null, "");
+        try (WriteAheadLog wal = WriteAheadLog.open(path, DurabilityMode.SYNC, 10)) {
+            wal.replay(c -> { }, id -> { });
+            wal.awaitDurable(wal.logSave(contact));
+        }
+
+        assertEquals(contact, replay(path).get("1"));
+    }
+
+    @Test
+    @DisplayName("Should truncate a torn record at the end of the log")
+    void shouldTruncateTornTail() throws IOException {
+        Path path = tempDir.resolve("wal");
+        try (WriteAheadLog wal = WriteAheadLog.open(path, DurabilityMode.SYNC, 10)) {
+            wal.replay(c -> { }, id -> { });
+            wal.awaitDurable(wal.logSave(new Contact("1", "Alice Smith", "111", "alice@example.com")));
+            wal.awaitDurable(wal.logSave(new Contact("2", "Bob Jones", "222", "bob@example.com")));
+        }
+        Path segment = path.resolve(String.format("%020d.wal", 1));
+        long intactSize = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(intactSize - 3);
+        }
+
+        try (WriteAheadLog wal = WriteAheadLog.open(path, DurabilityMode.SYNC, 10)) {
+            List<String> ids = new ArrayList<>();
+            assertEquals(1, wal.replay(contact -> ids.add(contact.getId()), ids::add));
+            assertEquals(List.of("1"), ids);
+            wal.awaitDurable(wal.logSave(new Contact("3", "Charlie Day", "333", "charlie@example.com")));
+        }
+
+        assertEquals(List.of("1", "3"), new ArrayList<>(replay(path).keySet()),
+                "Records appended after recovery should follow the last intact record.");
+    }
+
+    @ParameterizedTest
+    @EnumSource(DurabilityMode.class)
+    @DisplayName("Should commit concurrent appends from many writers")
+    void shouldCommitConcurrentAppends(DurabilityMode mode) throws Exception {
+        Path path = tempDir.resolve("wal");
+        int threads = 4;
+        int recordsPerThread = 200;
+        try (WriteAheadLog wal = WriteAheadLog.open(path, mode, 5)) {
+            wal.replay(c -> { }, id -> { });
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < recordsPerThread; i++) {
+                            wal.awaitDurable(wal.logSave(new Contact(thread + "-" + i, "Name", "1", "e@x.io")));
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        assertEquals(threads * recordsPerThread, replay(path).size());
+    }
+
+    @Test
+    @DisplayName("Should continue positions across segments and drop segments covered by a snapshot")
+    void shouldRollOverAndDeleteCoveredSegments() throws Exception {
+        Path path = tempDir.resolve("wal");
+        try (WriteAheadLog wal = WriteAheadLog.open(path, DurabilityMode.SYNC, 10)) {
+            wal.replay(c -> { }, id -> { });
+            wal.awaitDurable(wal.logSave(new Contact("1", "Alice Smith", "111", "alice@example.com")));
+            wal.awaitDurable(wal.logSave(new Contact("2", "Bob Jones", "222", "bob@example.com")));
+            wal.rollover();
+            long position = wal.logDelete("1");
+            wal.awaitDurable(position);
+
+            assertEquals(3, position, "Positions should continue in the new segment.");
+            assertEquals(2, segmentCount(path));
+            assertEquals(0, wal.deleteSegmentsThrough(1), "A segment with records after the position should be kept.");
+            assertEquals(1, wal.deleteSegmentsThrough(2));
+            assertEquals(1, segmentCount(path));
+        }
+
+        List<String> replayed = new ArrayList<>();
+        try (WriteAheadLog wal = WriteAheadLog.open(path, DurabilityMode.SYNC, 10)) {
+            assertEquals(1, wal.replay(2, contact -> replayed.add(contact.getId()), id -> replayed.add("-" + id)));
+            assertEquals(4, wal.logDelete("2"));
+        }
+        assertEquals(List.of("-1"), replayed);
+    }
+
+    @Test
+    @DisplayName("Should start after the snapshot position when the log is older than the snapshot")
+    void shouldStartAfterSnapshotPosition() throws IOException {
+        Path path = tempDir.resolve("wal");
+        try (WriteAheadLog wal = WriteAheadLog.open(path, DurabilityMode.SYNC, 10)) {
+            assertEquals(0, wal.replay(10, c -> { }, id -> { }));
+            assertEquals(11, wal.logDelete("1"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject appends before replay")
+    void shouldRejectAppendsBeforeReplay() throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(tempDir.resolve("wal"), DurabilityMode.OS, 10)) {
+            assertThrows(IllegalStateException.class, () -> wal.logDelete("1"));
+        }
+    }
+
+    private static long segmentCount(Path path) throws IOException {
+        try (Stream<Path> files = Files.list(path)) {
+            return files.count();
+        }
+    }
+
+    private static Map<String, Contact> replay(Path path) throws IOException {
+        Map<String, Contact> restored = new LinkedHashMap<>();
+        try (WriteAheadLog wal = WriteAheadLog.open(path, DurabilityMode.OS, 10)) {
+            wal.replay(contact -> restored.put(contact.getId(), contact), restored::remove);
+        }
+        return restored;
+    }
+}
@@ -0,0 +1,58 @@
+package com.addressbook.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteSearchTest {
+
+    @Test
+    @DisplayName("Should find the first occurrence within the range")
+    void shouldFindFirstOccurrenceInRange() {
+        for (ByteSearch search : new ByteSearch[]{ByteSearch.scalar(), ByteSearch.best()}) {
+            byte[] text = bytes("abcabcabc");
+            assertEquals(0, search.indexOf(text, 0, text.length, bytes("abc")), search.name());
+            assertEquals(3, search.indexOf(text, 1, text.length, bytes("abc")), search.name());
+            assertEquals(2, search.indexOf(text, 0, text.length, bytes("cabc")), search.name());
+            assertEquals(8, search.indexOf(text, 6, text.length, bytes("c")), search.name());
+            assertEquals(-1, search.indexOf(text, 0, 5, bytes("cabc")), "Needle crossing the range end: " + search.name());
+            assertEquals(-1, search.indexOf(text, 0, text.length, bytes("abd")), search.name());
+            assertEquals(-1, search.indexOf(text, 0, 2, bytes("abc")), search.name());
+        }
+    }
+
+    @Test
+    @DisplayName("Should agree with the scalar search on random text")
+    void shouldAgreeWithScalarSearch() {
+        ByteSearch best = ByteSearch.best();
+        Random random = new Random(42);
+        for (int round = 0; round < 2000; round++) {
+            byte[] text = new byte[random.nextInt(300)];
+            for (int i = 0; i < text.length; i++) {
+                text[i] = (byte) ('a' + random.nextInt(3));
+            }
+            byte[] needle = new byte[1 + random.nextInt(4)];
+            for (int i = 0; i < needle.length; i++) {
+                needle[i] = (byte) ('a' + random.nextInt(3));
+            }
+            int from = text.length == 0 ? 0 : random.nextInt(text.length);
+            int to = from + random.nextInt(text.length - from + 1);
+            for (int position = from; position <= to; ) {
+                int expected = ByteSearch.scalar().indexOf(text, position, to, needle);
+                assertEquals(expected, best.indexOf(text, position, to, needle), best.name() + " at " + position);
+                if (expected < 0) {
+                    break;
+                }
+                position = expected + 1;
+            }
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
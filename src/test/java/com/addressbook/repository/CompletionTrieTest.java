@@ -0,0 +1,155 @@
+package com.addressbook.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompletionTrieTest {
+
+    @Test
+    @DisplayName("Should keep the most common completions per prefix, capped at the maximum")
+    void shouldKeepMostCommonCompletions() {
+        CompletionTrie trie = new CompletionTrie();
+        for (int i = 0; i < 3; i++) {
+            trie.update(null, new StoredContact("a" + i, "Anna", null, null, i));
+        }
+        for (int i = 0; i < 2; i++) {
+            trie.update(null, new StoredContact("b" + i, "Andy", null, null, i));
+        }
+        for (int i = 0; i < 12; i++) {
+            trie.update(null, new StoredContact("c" + i, "An" + (char) ('a' + i) + "x", null, null, i));
+        }
+
+        List<String> completions = trie.complete("AN", 20);
+        assertEquals(CompletionTrie.MAX_COMPLETIONS, completions.size());
+        assertEquals(Arrays.asList("anna", "andy", "anax", "anbx"), completions.subList(0, 4));
+        assertEquals(Arrays.asList("anna"), trie.complete("an", 1));
+        assertEquals(Arrays.asList("anna"), trie.complete("ann", 10));
+    }
+
+    @Test
+    @DisplayName("Should rebuild a full list when a listed term loses contacts")
+    void shouldRebuildAfterDecrease() {
+        CompletionTrie trie = new CompletionTrie();
+        List<StoredContact> contacts = new ArrayList<>();
+        for (int i = 0; i < CompletionTrie.MAX_COMPLETIONS + 1; i++) {
+            for (int copies = 0; copies <= i; copies++) {
+                StoredContact contact = new StoredContact(i + "-" + copies, "T" + (char) ('a' + i), null, null, 1);
+                contacts.add(contact);
+                trie.update(null, contact);
+            }
+        }
+        assertFalse(trie.complete("t", 20).contains("ta"), "The least common term should not be listed.");
+
+        for (StoredContact contact : contacts) {
+            if (contact.getName().equals("Tk")) {
+                trie.update(contact, null);
+            }
+        }
+
+        List<String> completions = trie.complete("t", 20);
+        assertFalse(completions.contains("tk"), "A term with no contacts left should be gone.");
+        assertTrue(completions.contains("ta"), "The next most common term should take its place.");
+        assertEquals("tj", completions.get(0));
+    }
+
+    @Test
+    @DisplayName("Should follow renames and unlink terms that no contact has")
+    void shouldFollowRenames() {
+        CompletionTrie trie = new CompletionTrie();
+        StoredContact v1 = new StoredContact("1", "Ada Lovelace", null, "ada@example.com", 1);
+        StoredContact v2 = new StoredContact("1", "Ada King", null, "ada@example.com", 2);
+        trie.update(null, v1);
+        trie.update(v1, v2);
+
+        assertTrue(trie.complete("love", 10).isEmpty());
+        assertEquals(Arrays.asList("ada", "ada king", "ada@example.com"), trie.complete("ada", 10));
+        trie.update(v2, null);
+        assertTrue(trie.complete("", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should list the same completions as counting every term from scratch")
+    void shouldMatchBruteForce() {
+        CompletionTrie trie = new CompletionTrie();
+        Random random = new Random(7);
+        Map<String, StoredContact> contacts = new HashMap<>();
+        for (int round = 0; round < 3000; round++) {
+            String id = String.valueOf(random.nextInt(200));
+            StoredContact previous = contacts.get(id);
+            StoredContact next = random.nextInt(4) == 0 ? null
+                    : new StoredContact(id, "N" + (char) ('a' + random.nextInt(4)) + (char) ('a' + random.nextInt(4)), null, null, round);
+            trie.update(previous, next);
+            if (next == null) {
+                contacts.remove(id);
+            } else {
+                contacts.put(id, next);
+            }
+            if (round % 50 == 0) {
+                for (String prefix : new String[]{"", "n", "na", "nb", "nab"}) {
+                    assertEquals(expected(contacts.values(), prefix), trie.complete(prefix, 10), "Prefix " + prefix + " at round " + round);
+                }
+            }
+        }
+    }
+
+    private static List<String> expected(Collection<StoredContact> contacts, String prefix) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (StoredContact contact : contacts) {
+            String term = CompletionTrie.normalize(contact.getName());
+            if (term.startsWith(prefix)) {
+                counts.merge(term, 1, Integer::sum);
+            }
+        }
+        List<String> terms = new ArrayList<>(counts.keySet());
+        terms.sort(Comparator.comparing((String term) -> -counts.get(term)).thenComparing(term -> term));
+        return terms.subList(0, Math.min(10, terms.size()));
+    }
+
+    @Test
+    @DisplayName("Should end up the same when changes to one contact arrive out of order")
+    void shouldTolerateReorderedChanges() {
+        CompletionTrie trie = new CompletionTrie();
+        StoredContact v1 = new StoredContact("1", "Ada", null, null, 1);
+        StoredContact v2 = new StoredContact("1", "Bea", null, null, 2);
+        trie.update(v1, v2);
+        assertTrue(trie.complete("", 10).contains("bea"));
+        assertFalse(trie.complete("", 10).contains("ada"), "A term whose count went below zero should not be listed.");
+
+        trie.update(null, v1);
+        assertEquals(Arrays.asList("bea"), trie.complete("", 10));
+        trie.update(v2, null);
+        assertTrue(trie.complete("", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should estimate its footprint and release it when terms are gone")
+    void shouldEstimateBytes() {
+        CompletionTrie trie = new CompletionTrie();
+        long empty = trie.estimatedBytes();
+        List<StoredContact> contacts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            StoredContact contact = new StoredContact(String.valueOf(i), "Name" + i, null, "user" + i + "@example.com", 1);
+            contacts.add(contact);
+            trie.update(null, contact);
+        }
+        trie.complete("n", 10);
+        assertTrue(trie.estimatedBytes() > empty + 100 * "user0@example.com".length(), "Every term should be counted.");
+
+        for (StoredContact contact : contacts) {
+            trie.update(contact, null);
+        }
+        assertEquals(empty, trie.estimatedBytes(), "Unlinked nodes and terms should no longer be counted.");
+    }
+}
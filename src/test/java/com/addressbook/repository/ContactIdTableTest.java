@@ -0,0 +1,104 @@
+package com.addressbook.repository;
+
+import com.addressbook.model.ContactId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContactIdTableTest {
+
+    private ContactIdTable table;
+
+    @BeforeEach
+    void setUp() {
+        table = new ContactIdTable(4);
+    }
+
+    @Test
+    @DisplayName("Should find, replace and remove contacts by their 128-bit id")
+    void shouldPutReplaceAndRemove() {
+        String id = ContactId.newId();
+        long high = ContactId.high(id);
+        long low = ContactId.low(id);
+
+        table.compute(id, high, low, (key, previous) -> new StoredContact(key, "Alice", null, null, 1));
+        table.compute(id, high, low, (key, previous) -> new StoredContact(key, "Alicia", null, null, 2));
+
+        assertEquals("Alicia", table.get(high, low).getName());
+        assertEquals(1, table.size());
+
+        table.compute(id, high, low, (key, previous) -> null);
+        assertNull(table.get(high, low), "Removed id should not be found.");
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    @DisplayName("Should keep every contact reachable while growing and reusing deleted slots")
+    void shouldGrowAndReuseSlots() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            String id = ContactId.newId();
+            ids.add(id);
+            put(id, i);
+        }
+        for (int i = 0; i < ids.size(); i += 2) {
+            String id = ids.get(i);
+            table.compute(id, ContactId.high(id), ContactId.low(id), (key, previous) -> null);
+        }
+        for (int i = 0; i < 2_500; i++) {
+            put(ContactId.newId(), i);
+        }
+
+        assertEquals(5_000, table.size());
+        for (int i = 0; i < ids.size(); i++) {
+            String id = ids.get(i);
+            StoredContact contact = table.get(ContactId.high(id), ContactId.low(id));
+            if (i % 2 == 0) {
+                assertNull(contact, "Deleted id should not be found.");
+            } else {
+                assertEquals(id, contact.getId());
+            }
+        }
+        int[] visited = {0};
+        table.forEach(contact -> visited[0]++);
+        assertEquals(5_000, visited[0], "forEach should visit every live contact once.");
+    }
+
+    @Test
+    @DisplayName("Should not lose concurrent inserts")
+    void shouldHandleConcurrentInserts() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        String id = ContactId.newId();
+                        put(id, i);
+                        assertNotNull(table.get(ContactId.high(id), ContactId.low(id)));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(8_000, table.size());
+    }
+
+    private void put(String id, long version) {
+        table.compute(id, ContactId.high(id), ContactId.low(id),
+                (key, previous) -> new StoredContact(key, "Contact " + version, null, null, version));
+    }
+}
@@ -0,0 +1,45 @@
+package com.addressbook.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExactIndexTest {
+
+    @Test
+    @DisplayName("Should normalize emails by trimming and case folding")
+    void shouldNormalizeEmails() {
+        assertEquals("alice@example.com", ExactIndex.normalizeEmail("  Alice@Example.COM "));
+        assertNull(ExactIndex.normalizeEmail("   "));
+        assertNull(ExactIndex.normalizeEmail(null));
+    }
+
+    @Test
+    @DisplayName("Should normalize phone numbers to their digits")
+    void shouldNormalizePhones() {
+        assertEquals("15551234567", ExactIndex.normalizePhone("+1 (555) 123-4567"));
+        assertEquals("15551234567", ExactIndex.normalizePhone("0015551234567"), "International 00 prefix should be dropped.");
+        assertEquals("5551234567", ExactIndex.normalizePhone("555.123.4567"));
+        assertNull(ExactIndex.normalizePhone("n/a"));
+    }
+
+    @Test
+    @DisplayName("Should move an id between keys when the field changes")
+    void shouldFollowUpdates() {
+        ExactIndex index = ExactIndex.email();
+        StoredContact v1 = new StoredContact("1", "Alice", null, "alice@example.com", 1);
+        StoredContact v2 = new StoredContact("1", "Alice", null, "alice@work.com", 2);
+        index.update(null, v1);
+        index.update(null, new StoredContact("2", "Alicia", null, "ALICE@example.com", 3));
+        index.update(v1, v2);
+
+        assertEquals(Set.of("2"), index.get("alice@example.com"));
+        assertEquals(Set.of("1"), index.get("alice@work.com"));
+
+        index.update(v2, null);
+        assertTrue(index.get("alice@work.com").isEmpty(), "Deleted contact should leave the index.");
+    }
+}
@@ -0,0 +1,60 @@
+package com.addressbook.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzyNameIndexTest {
+
+    @Test
+    @DisplayName("Should compute bounded edit distance with transpositions")
+    void shouldComputeDistance() {
+        assertEquals(0, FuzzyNameIndex.distance("smith", "smith", 2));
+        assertEquals(1, FuzzyNameIndex.distance("smith", "smyth", 2));
+        assertEquals(1, FuzzyNameIndex.distance("jhon", "john", 2), "Adjacent transposition should count as one edit.");
+        assertEquals(1, FuzzyNameIndex.distance("jonathon", "jonathan", 2));
+        assertEquals(3, FuzzyNameIndex.distance("alice", "bob", 2), "Distances above the bound should be capped at bound + 1.");
+        assertEquals(3, FuzzyNameIndex.distance("ab", "abcdef", 2));
+    }
+
+    @Test
+    @DisplayName("Should split names into lower-cased words and generate deletes")
+    void shouldTokenizeAndGenerateVariants() {
+        assertEquals(Arrays.asList("mary", "jane", "o", "neil"), new ArrayList<>(FuzzyNameIndex.words("Mary-Jane O'Neil")));
+        assertEquals(Set.of("abc", "bc", "ac", "ab"), FuzzyNameIndex.variants("abc", 1));
+        assertEquals(Set.of("abc", "bc", "ac", "ab", "a", "b", "c"), FuzzyNameIndex.variants("abc", 2));
+    }
+
+    @Test
+    @DisplayName("Should match words within the allowed distance and forget removed words")
+    void shouldMatchAndForget() {
+        FuzzyNameIndex index = new FuzzyNameIndex();
+        StoredContact alice = new StoredContact("1", "Alice Johnson", null, null, 1);
+        index.update(null, alice);
+        index.update(null, new StoredContact("2", "Alicia Jonsson", null, null, 2));
+        index.update(null, new StoredContact("3", "Al Jo", null, null, 3));
+
+        assertEquals(Map.of("1", 2), index.candidates("alise johnsen"));
+        assertEquals(Map.of("1", 1, "2", 1), index.candidates("johnsson"));
+        assertEquals(Map.of("3", 0), index.candidates("al"), "Two-letter words should only match exactly.");
+
+        index.update(alice, new StoredContact("1", "Alice Brown", null, null, 4));
+        assertEquals(Map.of("2", 1), index.candidates("johnsson"));
+        index.update(new StoredContact("1", "Alice Brown", null, null, 4), null);
+        assertTrue(index.candidates("brown").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should score names by the summed distance of each query word")
+    void shouldScore() {
+        assertEquals(0, FuzzyNameIndex.score("john smith", "John Smith"));
+        assertEquals(2, FuzzyNameIndex.score("jhon smyth", "John Smith"));
+        assertEquals(-1, FuzzyNameIndex.score("john brown", "John Smith"));
+    }
+}
@@ -1,12 +1,27 @@
 package com.addressbook.repository;
 
+import com.addressbook.exception.ContactNotFoundException;
+import com.addressbook.exception.DuplicateContactException;
+import com.addressbook.model.ChangeType;
 import com.addressbook.model.Contact;
+import com.addressbook.model.ContactChange;
+import com.addressbook.model.ContactChanges;
+import com.addressbook.model.ContactPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -125,10 +140,658 @@ class InMemoryContactRepositoryTest {
         assertEquals(4, results7.size());
     }
 
+    @Test
+    @DisplayName("Should reflect updated and deleted contacts in search results")
+    void shouldReindexUpdatedAndDeletedContacts() {
+        repository.save(new Contact("1", "Alice Smith", "111-222-3333", "alice@example.com"));
+        repository.save(new Contact("1", "Alice Jones", "111-222-3333", "alice@example.com"));
+
+        assertTrue(repository.search("smith").isEmpty(), "Old name should no longer match after update.");
+        assertEquals(1, repository.search("jones").size(), "New name should match after update.");
+
+        repository.deleteById("1");
+        assertTrue(repository.search("alice").isEmpty(), "Deleted contact should not match.");
+    }
+
+    @Test
+    @DisplayName("Should match queries shorter than a trigram")
+    void shouldSearchWithShortQueries() {
+        Contact contact1 = new Contact("1", "Al", "12", "a@b.io");
+        Contact contact2 = new Contact("2", "Bob", "345", "bob@mail.com");
+        repository.save(contact1);
+        repository.save(contact2);
+
+        List<Contact> results1 = repository.search("AL");
+        assertEquals(1, results1.size());
+        assertTrue(results1.contains(contact1));
+
+        List<Contact> results2 = repository.search("4");
+        assertEquals(1, results2.size());
+        assertTrue(results2.contains(contact2));
+    }
+
+    @Test
+    @DisplayName("Should apply an update to the current version of a contact")
+    void shouldUpdateCurrentVersion() {
+        repository.save(new Contact("1", "Alice Smith", "111", "alice@example.com"));
+
+        Optional<Contact> updated = repository.update("1", contact -> {
+            contact.setPhone("222");
+            return contact;
+        });
+
+        assertTrue(updated.isPresent(), "Update of an existing contact should return it.");
+        assertEquals(new Contact("1", "Alice Smith", "222", "alice@example.com"), updated.get());
+        assertEquals(updated, repository.findById("1"));
+        assertEquals(1, repository.search("222").size(), "Updated phone should be searchable.");
+        assertFalse(repository.update("missing", contact -> contact).isPresent(),
+                "Update of a missing contact should return empty.");
+    }
+
+    @Test
+    @DisplayName("Should not expose stored state through returned contacts")
+    void shouldNotExposeStoredState() {
+        Contact contact = new Contact("1", "Alice Smith", "111", "alice@example.com");
+        repository.save(contact);
+
+        contact.setName("Mallory");
+        repository.findById("1").get().setName("Mallory");
+
+        assertEquals("Alice Smith", repository.findById("1").get().getName(),
+                "Mutating a saved or returned contact should not change the stored version.");
+    }
+
+    @Test
+    @DisplayName("Should not lose concurrent updates to the same contact")
+    void shouldNotLoseConcurrentUpdates() throws Exception {
+        repository.save(new Contact("1", "0", "111", "counter@example.com"));
+        int threads = 8;
+        int updatesPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < updatesPerThread; i++) {
+                        repository.update("1", contact -> {
+                            contact.setName(String.valueOf(Integer.parseInt(contact.getName()) + 1));
+                            return contact;
+                        });
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(String.valueOf(threads * updatesPerThread), repository.findById("1").get().getName());
+    }
+
+    @Test
+    @DisplayName("Should save a batch of contacts")
+    void shouldSaveAll() {
+        Contact contact1 = new Contact("1", "Alice Smith", "111", "alice@example.com");
+        Contact contact2 = new Contact("2", "Bob Jones", "222", "bob@example.com");
+
+        repository.saveAll(Arrays.asList(contact1, contact2));
+
+        assertEquals(Optional.of(contact1), repository.findById("1"));
+        assertEquals(Optional.of(contact2), repository.findById("2"));
+        assertEquals(1, repository.search("jones").size(), "Batch-saved contacts should be searchable.");
+    }
+
+    @Test
+    @DisplayName("Should apply a batch of updates in order")
+    void shouldUpdateAll() {
+        repository.saveAll(Arrays.asList(
+                new Contact("1", "Alice Smith", "111", "alice@example.com"),
+                new Contact("2", "Bob Jones", "222", "bob@example.com")));
+
+        List<Contact> updated = repository.updateAll(Arrays.asList("1:Alicia", "2:Robert", "1:Ali"),
+                update -> update.split(":")[0],
+                (contact, update) -> new Contact(contact.getId(), contact.getName() + "/" + update.split(":")[1],
+                        contact.getPhone(), contact.getEmail()));
+
+        assertEquals(3, updated.size());
+        assertEquals("Alice Smith/Alicia/Ali", updated.get(2).getName(), "Later updates should see earlier ones.");
+        assertEquals("Alice Smith/Alicia/Ali", repository.findById("1").get().getName());
+        assertEquals("Bob Jones/Robert", repository.findById("2").get().getName());
+    }
+
+    @Test
+    @DisplayName("Should not apply any update of a batch that references a missing contact")
+    void shouldRejectWholeBatchWithMissingContact() {
+        Contact contact = new Contact("1", "Alice Smith", "111", "alice@example.com");
+        repository.save(contact);
+
+        ContactNotFoundException thrown = assertThrows(ContactNotFoundException.class,
+                () -> repository.updateAll(Arrays.asList("1", "missing"), id -> id,
+                        (existing, id) -> new Contact(id, "Changed", existing.getPhone(), existing.getEmail())));
+
+        assertEquals("Contact with ID missing not found.", thrown.getMessage());
+        assertEquals(Optional.of(contact), repository.findById("1"), "Earlier updates in the batch should not be applied.");
+    }
+
+    @Test
+    @DisplayName("Should delete a batch of contacts and count only existing ones")
+    void shouldDeleteAll() {
+        repository.saveAll(Arrays.asList(
+                new Contact("1", "Alice Smith", "111", "alice@example.com"),
+                new Contact("2", "Bob Jones", "222", "bob@example.com")));
+
+        int deletedCount = repository.deleteAll(Arrays.asList("1", "missing", "2", "1"));
+
+        assertEquals(2, deletedCount);
+        assertTrue(repository.search("").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should record every applied mutation in the attached journal")
+    void shouldRecordMutationsInJournal() {
+        List<String> records = new ArrayList<>();
+        List<Long> awaited = new ArrayList<>();
+        repository.setJournal(new ContactJournal() {
+            @Override
+            public long logSave(Contact contact) {
+                records.add("save " + contact.getId() + " " + contact.getName());
+                return records.size();
+            }
+
+            @Override
+            public long logDelete(String id) {
+                records.add("delete " + id);
+                return records.size();
+            }
+
+            @Override
+            public long position() {
+                return records.size();
+            }
+
+            @Override
+            public void awaitDurable(long position) {
+                awaited.add(position);
+            }
+        });
+
+        repository.save(new Contact("1", "Alice", "111", "alice@example.com"));
+        repository.update("1", contact -> new Contact(contact.getId(), "Alicia", contact.getPhone(), contact.getEmail()));
+        repository.saveAll(Arrays.asList(new Contact("2", "Bob", "222", "bob@example.com"),
+                new Contact("3", "Carol", "333", "carol@example.com")));
+        repository.deleteById("missing");
+        repository.deleteAll(Arrays.asList("1", "2"));
+
+        assertEquals(Arrays.asList("save 1 Alice", "save 1 Alicia", "save 2 Bob", "save 3 Carol", "delete 1", "delete 2"),
+                records);
+        assertEquals(Arrays.asList(1L, 2L, 4L, 6L), awaited, "Each call should wait once for its last record.");
+    }
+
+    @Test
+    @DisplayName("Should behave the same with the slab storage engine")
+    void shouldSupportSlabStorageEngine() {
+        repository = new InMemoryContactRepository("slab");
+        Contact contact = new Contact("1", "Alice Smith", "111-222-3333", "alice@example.com");
+        repository.save(contact);
+        repository.update("1", existing -> new Contact(existing.getId(), "Alice Jones", existing.getPhone(), existing.getEmail()));
+
+        assertEquals("slab", repository.getStorageEngine());
+        assertEquals("Alice Jones", repository.findById("1").get().getName());
+        assertEquals(1, repository.search("jones").size());
+        assertEquals(1, repository.search("a").size());
+        assertTrue(repository.deleteById("1"));
+        assertEquals(0, repository.size());
+        assertThrows(IllegalArgumentException.class, () -> new InMemoryContactRepository("tape"));
+    }
+
     @Test
     @DisplayName("Should return empty list when searching in an empty repository")
     void shouldReturnEmptyListWhenSearchingInEmptyRepository() {
         List<Contact> results = repository.search("any query");
         assertTrue(results.isEmpty(), "Searching an empty repository should return an empty list.");
     }
+
+    @Test
+    @DisplayName("Should page through search results in id order with a cursor")
+    void shouldPageThroughSearchResults() {
+        for (int i = 0; i < 25; i++) {
+            repository.save(new Contact(String.format("id-%02d", 24 - i), "Smith " + i, null, null));
+        }
+        repository.save(new Contact("other", "Jones", null, null));
+
+        List<String> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ContactPage page = repository.search("smith", cursor, 10);
+            page.getContacts().forEach(contact -> ids.add(contact.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages, "25 matches should take three pages of 10.");
+        assertEquals(25, ids.size());
+        List<String> sorted = new ArrayList<>(ids);
+        sorted.sort(null);
+        assertEquals(sorted, ids, "Pages should be returned in id order without gaps or repeats.");
+        assertEquals(2, repository.search("th", null, 2).getContacts().size(), "Short queries should also be paged.");
+        assertThrows(IllegalArgumentException.class, () -> repository.search("smith", null, 0));
+    }
+
+    @Test
+    @DisplayName("Should pass each search match to the consumer")
+    void shouldStreamSearchMatches() {
+        repository.save(new Contact("1", "Alice Smith", "111", "alice@example.com"));
+        repository.save(new Contact("2", "Bob Smith", "222", "bob@example.com"));
+        repository.save(new Contact("3", "Carol Jones", "333", "carol@example.com"));
+
+        List<String> names = new ArrayList<>();
+        repository.search("smith", contact -> names.add(contact.getName()));
+
+        names.sort(null);
+        assertEquals(Arrays.asList("Alice Smith", "Bob Smith"), names);
+    }
+
+    @Test
+    @DisplayName("Should record operation timers, batch sizes, search selectivity and size gauges")
+    void shouldRecordMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        repository.setMeterRegistry(registry);
+
+        repository.saveAll(Arrays.asList(
+                new Contact("1", "Alice Smith", "111", "alice@example.com"),
+                new Contact("2", "Bob Smith", "222", "bob@example.com"),
+                new Contact("3", "Carol Jones", "333", "carol@example.com")));
+        repository.findById("1");
+        repository.findById("missing");
+        repository.search("smith");
+        repository.deleteById("3");
+
+        assertEquals(2, registry.get("contacts.repository").tag("operation", "find").timer().count());
+        assertEquals(1, registry.get("contacts.repository").tag("operation", "delete").timer().count());
+        assertEquals(3, registry.get("contacts.batch.size").tag("operation", "saveAll").summary().totalAmount());
+        assertEquals(2, registry.get("contacts.search.matched").summary().totalAmount(), "Two contacts match 'smith'.");
+        assertTrue(registry.get("contacts.search.scanned").summary().totalAmount() >= 2);
+        assertEquals(1, registry.get("contacts.lock.wait").tag("mode", "exclusive").timer().count(),
+                "The batch should record its wait for the exclusive lock.");
+        assertEquals(1, registry.get("contacts.lock.wait").tag("mode", "shared").timer().count(),
+                "The single delete should record its wait for the shared lock.");
+        assertEquals(2, registry.get("contacts.size").gauge().value());
+        assertTrue(registry.get("contacts.storage.bytes").gauge().value() > 0);
+    }
+
+    @Test
+    @DisplayName("Should find contacts by normalized email and phone and follow updates")
+    void shouldFindByEmailAndPhone() {
+        repository.save(new Contact("1", "Alice", "+1 (555) 123-4567", "Alice@Example.com"));
+        repository.save(new Contact("2", "Bob", "555 000 1111", "bob@example.com"));
+
+        assertEquals("1", repository.findByEmail("alice@example.COM").get(0).getId());
+        assertEquals("1", repository.findByPhone("15551234567").get(0).getId());
+        assertTrue(repository.findByPhone("5551234567").isEmpty(), "Numbers with different digits should not match.");
+
+        repository.save(new Contact("1", "Alice", "+1 (555) 123-4567", "alice@work.com"));
+        assertTrue(repository.findByEmail("alice@example.com").isEmpty(), "Old email should no longer resolve.");
+        assertEquals(1, repository.findByEmail("alice@work.com").size());
+
+        repository.deleteById("2");
+        assertTrue(repository.findByPhone("5550001111").isEmpty(), "Deleted contact should no longer resolve.");
+    }
+
+    @Test
+    @DisplayName("Should find contacts by phone prefix and suffix in number order")
+    void shouldFindByPhonePrefixAndSuffix() {
+        repository.save(new Contact("1", "Alice", "+1 (555) 123-4567", null));
+        repository.save(new Contact("2", "Bob", "+1 555 000 4567", null));
+        repository.save(new Contact("3", "Carol", "+44 20 7946 0000", null));
+
+        assertEquals(Arrays.asList("2", "1"), ids(repository.findByPhonePrefix("+1 555", 10)));
+        assertEquals(Collections.singletonList("2"), ids(repository.findByPhonePrefix("1555", 1)), "Limit applies in number order.");
+        assertEquals(Arrays.asList("2", "1"), ids(repository.findByPhoneSuffix("45-67", 10)), "Suffix matches come in reversed-digit order.");
+        assertTrue(repository.findByPhonePrefix("555", 10).isEmpty(), "Prefixes include the country code.");
+
+        repository.save(new Contact("2", "Bob", "+1 555 000 9999", null));
+        repository.deleteById("1");
+        assertTrue(repository.findByPhoneSuffix("4567", 10).isEmpty(), "Changed and deleted numbers should no longer match.");
+        assertThrows(IllegalArgumentException.class, () -> repository.findByPhonePrefix("abc", 10));
+    }
+
+    @Test
+    @DisplayName("Should find misspelled names closest first and follow renames")
+    void shouldFindByFuzzyName() {
+        repository.save(new Contact("1", "Jonathan Smith", null, null));
+        repository.save(new Contact("2", "John Smyth", null, null));
+        repository.save(new Contact("3", "Joan Smith", null, null));
+        repository.save(new Contact("4", "Alice Brown", null, null));
+
+        assertEquals(Arrays.asList("3", "2"), ids(repository.findByFuzzyName("jon smith", 10)),
+                "Joan Smith is one edit away, John Smyth two.");
+        assertEquals(Collections.singletonList("1"), ids(repository.findByFuzzyName("Jonathon", 10)));
+        assertEquals(Collections.singletonList("3"), ids(repository.findByFuzzyName("jon smith", 1)));
+        assertTrue(repository.findByFuzzyName("bob", 10).isEmpty());
+
+        repository.save(new Contact("3", "Joanne Smith", null, null));
+        repository.deleteById("2");
+        assertTrue(repository.findByFuzzyName("jon smith", 10).isEmpty(), "Renamed and deleted contacts should no longer match.");
+        assertThrows(IllegalArgumentException.class, () -> repository.findByFuzzyName("  -- ", 10));
+    }
+
+    @Test
+    @DisplayName("Should rank exact, prefix, word-prefix and substring matches, name before email before phone")
+    void shouldSearchRanked() {
+        repository.save(new Contact("1", "Ann Marsh", "555 0101", "ann.marsh@example.com"));
+        repository.save(new Contact("2", "Marsha Lee", null, "lee@example.com"));
+        repository.save(new Contact("3", "Bob", null, "marsh@example.com"));
+        repository.save(new Contact("4", "Marsh", null, null));
+        repository.save(new Contact("5", "Cid", null, "cid@marshmail.com"));
+        repository.save(new Contact("6", "Ed Dumarsh", null, null));
+
+        assertEquals(Arrays.asList("4", "2", "3", "1", "5", "6"), ids(repository.searchRanked("MARSH", 10)),
+                "Exact name, name prefix, email prefix, name word, email word, then name substring.");
+        assertEquals(Arrays.asList("4", "2"), ids(repository.searchRanked("marsh", 2)), "Only the top K should be returned.");
+        assertEquals(Arrays.asList("1"), ids(repository.searchRanked("0101", 10)));
+        assertThrows(IllegalArgumentException.class, () -> repository.searchRanked("marsh", 0));
+    }
+
+    @Test
+    @DisplayName("Should complete names and emails as contacts are saved and deleted")
+    void shouldComplete() {
+        repository.save(new Contact("1", "John Smith", null, "john@example.com"));
+        repository.save(new Contact("2", "John Doe", null, null));
+        repository.save(new Contact("3", "Johanna Smythe", null, null));
+
+        assertEquals(Arrays.asList("john", "johanna", "johanna smythe", "john doe", "john smith", "john@example.com"),
+                repository.complete("Jo", 10), "Most common first, then alphabetical.");
+        assertEquals(Arrays.asList("john smith"), repository.complete("john  sm", 10), "Whitespace should be collapsed.");
+        assertEquals(Arrays.asList("smith", "smythe"), repository.complete("sm", 10));
+
+        repository.save(new Contact("1", "Jack Smith", null, null));
+        repository.deleteById("2");
+        assertEquals(Arrays.asList("johanna", "johanna smythe"), repository.complete("jo", 10));
+        assertTrue(repository.complete("x", 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> repository.complete("jo", 0));
+    }
+
+    @Test
+    @DisplayName("Should search, page and rank across shards as one repository")
+    void shouldSearchAcrossShards() {
+        repository = new InMemoryContactRepository("heap", 4);
+        List<Contact> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new Contact(String.format("id-%03d", i), (i % 2 == 0 ? "Even " : "Odd ") + i, null, null));
+        }
+        repository.saveAll(batch);
+
+        assertEquals(4, repository.getShardCount());
+        assertEquals(100, repository.size());
+        assertEquals(50, repository.search("even").size());
+        assertEquals(100, repository.search(" ").size(), "Short queries should scan every shard.");
+
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            ContactPage page = repository.search("odd", cursor, 7);
+            paged.addAll(ids(page.getContacts()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        List<String> expected = new ArrayList<>();
+        for (int i = 1; i < 100; i += 2) {
+            expected.add(String.format("id-%03d", i));
+        }
+        assertEquals(expected, paged, "Pages should merge the shards in id order without gaps or repeats.");
+
+        assertEquals(Arrays.asList("id-007", "id-070", "id-071"), ids(repository.searchRanked("7", 3)));
+        List<Contact> streamed = new ArrayList<>();
+        repository.search("even", streamed::add);
+        assertEquals(50, streamed.size());
+        assertEquals(100, repository.snapshot().size());
+    }
+
+    @Test
+    @DisplayName("Should answer short queries the same with the vector and scalar scans")
+    void shouldScanShortQueriesWithEitherEngine() {
+        repository = new InMemoryContactRepository("heap", 2);
+        repository.save(new Contact("1", "Zed Ng", "555-0100", "zed@example.com"));
+        repository.save(new Contact("2", "Anna", "ext X9", "anna@example.com"));
+        repository.save(new Contact("3", "Zoe", null, null));
+        repository.update("1", contact -> {
+            contact.setName("Ned");
+            return contact;
+        });
+        repository.deleteById("3");
+
+        for (boolean vectorScan : new boolean[]{true, false}) {
+            repository.setVectorScan(vectorScan);
+            String engine = repository.getScanEngine();
+            assertEquals(Arrays.asList("1"), ids(repository.search("NE")), engine);
+            assertTrue(repository.search("ng").isEmpty(), "Replaced contacts should not match: " + engine);
+            assertTrue(repository.search("zo").isEmpty(), "Deleted contacts should not match: " + engine);
+            assertEquals(Arrays.asList("2"), ids(repository.search("X9")), engine);
+            assertTrue(repository.search("x9").isEmpty(), "Phones should match as entered: " + engine);
+            assertEquals(2, repository.search("@").size(), engine);
+        }
+        repository.setVectorScan(false);
+        assertEquals("scalar", repository.getScanEngine());
+    }
+
+    @Test
+    @DisplayName("Should not match a short query across two packed contacts")
+    void shouldNotMatchAcrossContacts() {
+        repository.save(new Contact("a", "Zed", "5551", null));
+        repository.save(new Contact("b", "Ann", null, null));
+
+        assertTrue(repository.search("1a").isEmpty(), "The end of one phone and the next name are not one field.");
+        assertEquals(Arrays.asList("a"), ids(repository.search("51")));
+    }
+
+    @Test
+    @DisplayName("Should keep batches atomic when they span shards")
+    void shouldApplyBatchesAtomicallyAcrossShards() {
+        repository = new InMemoryContactRepository("heap", 8);
+        for (int i = 0; i < 20; i++) {
+            repository.save(new Contact("id-" + i, "Name " + i, null, null));
+        }
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add("id-" + i);
+        }
+        ids.add("missing");
+
+        assertThrows(ContactNotFoundException.class, () -> repository.updateAll(ids, id -> id,
+                (existing, id) -> new Contact(id, "Changed", null, null)));
+        assertTrue(repository.search("changed").isEmpty(), "No shard should have applied part of the batch.");
+
+        assertEquals(20, repository.deleteAll(ids));
+        assertEquals(0, repository.size());
+        assertThrows(IllegalArgumentException.class, () -> new InMemoryContactRepository("heap", -1));
+    }
+
+    @Test
+    @DisplayName("Should accept concurrent writers in every shard")
+    void shouldWriteConcurrentlyAcrossShards() throws Exception {
+        repository = new InMemoryContactRepository("heap", 4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        String id = thread + "-" + i;
+                        repository.save(new Contact(id, "Writer " + thread, null, null));
+                        repository.update(id, contact -> {
+                            contact.setPhone("555");
+                            return contact;
+                        });
+                    }
+                    repository.saveAll(Arrays.asList(new Contact(thread + "-batch", "Batch", null, null)));
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(2004, repository.size());
+        assertEquals(2000, repository.findByPhone("555").size());
+    }
+
+    @Test
+    @DisplayName("Should reject batches that would duplicate a unique email or phone")
+    void shouldEnforceUniqueness() {
+        repository.setUniqueEmails(true);
+        repository.setUniquePhones(true);
+        repository.saveAll(Arrays.asList(new Contact("1", "Alice", "555-1234", "alice@example.com")));
+
+        assertThrows(DuplicateContactException.class,
+                () -> repository.saveAll(Arrays.asList(new Contact("2", "Alicia", null, "ALICE@example.com"))));
+        assertThrows(DuplicateContactException.class, () -> repository.saveAll(Arrays.asList(
+                new Contact("3", "Carol", "111", null), new Contact("4", "Dave", "1-11", null))),
+                "Duplicates within one batch should be rejected.");
+        assertEquals(1, repository.size(), "Rejected batches should not store anything.");
+
+        repository.updateAll(Arrays.asList("1"), id -> id,
+                (current, id) -> new Contact(id, current.getName(), current.getPhone(), "alice@work.com"));
+        repository.saveAll(Arrays.asList(new Contact("2", "Alicia", null, "alice@example.com")));
+        assertEquals(2, repository.size(), "A released email can be reused.");
+    }
+
+    @Test
+    @DisplayName("Should reject single saves and updates that would duplicate a unique email or phone")
+    void shouldEnforceUniquenessOnSingleWrites() {
+        repository.setUniqueEmails(true);
+        repository.setUniquePhones(true);
+        repository.save(new Contact("1", "Alice", "555-1234", "alice@example.com"));
+        repository.save(new Contact("2", "Bob", "555-9999", "bob@example.com"));
+
+        assertThrows(DuplicateContactException.class,
+                () -> repository.save(new Contact("3", "Alicia", null, " Alice@Example.com")));
+        assertThrows(DuplicateContactException.class, () -> repository.update("2", contact -> {
+            contact.setPhone("(555) 1234");
+            return contact;
+        }));
+        assertEquals(2, repository.size());
+        assertEquals("555-9999", repository.findById("2").get().getPhone(), "A rejected update should not be applied.");
+
+        repository.save(new Contact("1", "Alice Smith", "555-1234", "alice@example.com"));
+        assertEquals("Alice Smith", repository.findById("1").get().getName(), "A contact may keep its own email and phone.");
+        repository.deleteAll(Arrays.asList("1"));
+        repository.update("2", contact -> {
+            contact.setEmail("alice@example.com");
+            return contact;
+        });
+        assertEquals("2", repository.findByEmail("alice@example.com").get(0).getId(), "A deleted contact's email can be reused.");
+    }
+
+    @Test
+    @DisplayName("Should let only one of many concurrent single saves claim each unique email")
+    void shouldKeepConcurrentSingleSavesUnique() throws Exception {
+        repository = new InMemoryContactRepository("heap", 8);
+        repository.setUniqueEmails(true);
+        int threads = 8;
+        int emails = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    int saved = 0;
+                    for (int i = 0; i < emails; i++) {
+                        try {
+                            repository.save(new Contact(thread + "-" + i, "Contact " + i, null, "user" + i + "@example.com"));
+                            saved++;
+                        } catch (DuplicateContactException e) {
+                            // Another thread claimed this email first.
+                        }
+                    }
+                    return saved;
+                }));
+            }
+            int saved = 0;
+            for (Future<Integer> future : futures) {
+                saved += future.get();
+            }
+            assertEquals(emails, saved, "Exactly one save per email should succeed.");
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(emails, repository.size());
+        for (int i = 0; i < emails; i++) {
+            assertEquals(1, repository.findByEmail("user" + i + "@example.com").size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should number every create, update and delete in the change feed")
+    void shouldFeedChanges() {
+        long start = repository.lastChangeSequence();
+        repository.save(new Contact("1", "Alice", null, null));
+        repository.saveAll(Arrays.asList(new Contact("2", "Bob", null, null), new Contact("1", "Alicia", null, null)));
+        repository.update("2", contact -> new Contact(null, "Bobby", null, null));
+        repository.deleteById("1");
+        repository.deleteById("missing");
+
+        ContactChanges changes = repository.changesSince(start, 100);
+        assertFalse(changes.isResyncRequired());
+        assertEquals(start + 5, changes.getNext(), "A failed delete should not take a sequence number.");
+        assertEquals(Arrays.asList(ChangeType.CREATED, ChangeType.CREATED, ChangeType.UPDATED, ChangeType.UPDATED, ChangeType.DELETED),
+                changes.getChanges().stream().map(ContactChange::getType).collect(Collectors.toList()));
+        assertEquals(Arrays.asList("1", "2", "1", "2", "1"),
+                changes.getChanges().stream().map(ContactChange::getId).collect(Collectors.toList()));
+        assertEquals(start + 1, changes.getChanges().get(0).getSequence());
+        assertEquals(new Contact("2", "Bobby", null, null), changes.getChanges().get(3).getContact());
+        assertNull(changes.getChanges().get(4).getContact(), "A delete carries no contact.");
+
+        ContactChanges page = repository.changesSince(start + 1, 2);
+        assertEquals(2, page.getChanges().size());
+        assertEquals(start + 3, page.getNext());
+        assertTrue(repository.changesSince(changes.getNext(), 100).getChanges().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> repository.changesSince(start, 0));
+    }
+
+    @Test
+    @DisplayName("Should ask clients for a resync once their changes are no longer retained")
+    void shouldRequireResync() {
+        repository = new InMemoryContactRepository("heap", 2, 4);
+        long start = repository.lastChangeSequence();
+        for (int i = 0; i < 6; i++) {
+            repository.save(new Contact(Integer.toString(i), "Contact " + i, null, null));
+        }
+
+        ContactChanges lapped = repository.changesSince(start + 1, 100);
+        assertTrue(lapped.isResyncRequired(), "Change 2 has been overwritten.");
+        assertEquals(start + 6, lapped.getNext(), "A resync should resume from the latest change.");
+        assertTrue(lapped.getChanges().isEmpty());
+        assertEquals(4, repository.changesSince(start + 2, 100).getChanges().size());
+        assertTrue(repository.changesSince(start - 1, 100).isResyncRequired(), "Sequence numbers from an earlier run are unknown.");
+        assertTrue(repository.changesSince(start + 7, 100).isResyncRequired(), "Sequence numbers from the future are unknown.");
+    }
+
+    @Test
+    @DisplayName("Should wake a waiting reader when a change is made")
+    void shouldAwaitChanges() throws Exception {
+        long start = repository.lastChangeSequence();
+        assertTrue(repository.awaitChanges(start, 10, 10).getChanges().isEmpty(), "Waiting should time out without changes.");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ContactChanges> waiting = executor.submit(() -> repository.awaitChanges(start, 10, 60_000));
+            Thread.sleep(50);
+            repository.save(new Contact("1", "Alice", null, null));
+            ContactChanges changes = waiting.get(10, TimeUnit.SECONDS);
+            assertEquals(1, changes.getChanges().size());
+            assertEquals("Alice", changes.getChanges().get(0).getContact().getName());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static List<String> ids(List<Contact> contacts) {
+        return contacts.stream().map(Contact::getId).collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,103 @@
+package com.addressbook.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedTextTest {
+
+    @Test
+    @DisplayName("Should match names and emails case-insensitively and phones as entered")
+    void shouldMatchFields() {
+        for (ByteSearch search : new ByteSearch[]{ByteSearch.scalar(), ByteSearch.best()}) {
+            PackedText text = new PackedText();
+            text.setSearch(search);
+            text.update(null, new StoredContact("a", "Ana Lima", "+1 555 0100", "ana@example.com", 1));
+            text.update(null, new StoredContact("b", "Bo", "ext. X90", null, 2));
+            text.update(null, new StoredContact("c", null, null, "CX@example.com", 3));
+
+            assertEquals(Arrays.asList("a"), ids(text, "AN"), search.name());
+            assertEquals(Arrays.asList("a", "b"), ids(text, "0"), "Phone digits: " + search.name());
+            assertEquals(Arrays.asList("b"), ids(text, "X9"), "Phone matched as entered: " + search.name());
+            assertTrue(ids(text, "x9").isEmpty(), "Phone is case-sensitive: " + search.name());
+            assertEquals(Arrays.asList("c"), ids(text, "cx"), search.name());
+            assertEquals(Arrays.asList("a", "b", "c"), ids(text, "e"), "Every field is searched: " + search.name());
+        }
+    }
+
+    @Test
+    @DisplayName("Should not match across field boundaries")
+    void shouldNotMatchAcrossFields() {
+        PackedText text = new PackedText();
+        text.update(null, new StoredContact("a", "ab", "12", "cd", 1));
+
+        assertTrue(ids(text, "bc").isEmpty(), "Name and email are separate");
+        assertTrue(ids(text, "d1").isEmpty(), "Email and phone are separate");
+
+        for (ByteSearch search : new ByteSearch[]{ByteSearch.scalar(), ByteSearch.best()}) {
+            PackedText records = new PackedText();
+            records.setSearch(search);
+            records.update(null, new StoredContact("z", "Zed", "5551", null, 1));
+            records.update(null, new StoredContact("b", "Ann", null, null, 2));
+            assertTrue(ids(records, "1a").isEmpty(), "Records are separate: " + search.name());
+            assertEquals(Arrays.asList("z"), ids(records, "51"), search.name());
+        }
+        assertTrue(PackedText.canSearch("b"));
+        assertFalse(PackedText.canSearch("b\0c"), "NUL separates the fields");
+        assertFalse(PackedText.canSearch(""), "Empty queries fall back to the per-contact scan");
+    }
+
+    @Test
+    @DisplayName("Should only report the current version of each contact")
+    void shouldSkipSupersededRecords() {
+        PackedText text = new PackedText();
+        StoredContact first = new StoredContact("a", "Ana", null, null, 1);
+        StoredContact second = new StoredContact("a", "Anabel", null, null, 2);
+        text.update(null, first);
+        text.update(null, new StoredContact("b", "Anton", null, null, 3));
+        text.update(first, second);
+
+        List<String> ids = new ArrayList<>();
+        List<Long> versions = new ArrayList<>();
+        text.forEachMatch("an", "an", (id, version) -> {
+            ids.add(id);
+            versions.add(version);
+        });
+        assertEquals(Arrays.asList("b", "a"), ids);
+        assertEquals(Arrays.asList(3L, 2L), versions, "The replaced record is garbage");
+
+        text.update(second, null);
+        assertEquals(Arrays.asList("b"), ids(text, "an"));
+    }
+
+    @Test
+    @DisplayName("Should compact once garbage outweighs live records")
+    void shouldCompact() {
+        PackedText text = new PackedText();
+        StoredContact kept = new StoredContact("kept", "Kept", "X90", null, 0);
+        text.update(null, kept);
+        String name = new String(new char[1000]).replace('\0', 'x');
+        StoredContact current = null;
+        for (int version = 1; version <= 3 * PackedText.CHUNK_BYTES / 1000; version++) {
+            StoredContact next = new StoredContact("churn", name + version, null, null, version);
+            text.update(current, next);
+            current = next;
+        }
+
+        assertTrue(text.estimatedBytes() < 3L * PackedText.CHUNK_BYTES, "Garbage was reclaimed: " + text.estimatedBytes());
+        assertEquals(Arrays.asList("kept"), ids(text, "e"), "Matches after compaction");
+        assertEquals(Arrays.asList("churn"), ids(text, "x"));
+        assertEquals(Arrays.asList("kept"), ids(text, "X9"), "Phone offsets survive compaction");
+    }
+
+    private static List<String> ids(PackedText text, String query) {
+        List<String> ids = new ArrayList<>();
+        text.forEachMatch(query, query.toLowerCase(), (id, version) -> ids.add(id));
+        return ids;
+    }
+}
@@ -0,0 +1,68 @@
+package com.addressbook.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhoneTrieTest {
+
+    @Test
+    @DisplayName("Should visit prefix matches in digit order up to the limit")
+    void shouldVisitPrefixMatchesInOrder() {
+        PhoneTrie trie = new PhoneTrie(false);
+        trie.update(null, new StoredContact("c", "C", "+1 555 0300", null, 1));
+        trie.update(null, new StoredContact("a", "A", "+1 555 0100", null, 2));
+        trie.update(null, new StoredContact("b", "B", "(1) 555-0200", null, 3));
+        trie.update(null, new StoredContact("d", "D", "+44 20 0000", null, 4));
+
+        assertEquals(Arrays.asList("a", "b", "c"), visit(trie, "1555", 10));
+        assertEquals(Arrays.asList("a", "b"), visit(trie, "1555", 2));
+        assertEquals(Arrays.asList("a", "b", "c", "d"), visit(trie, "", 10));
+        assertTrue(visit(trie, "9", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should index reversed digits for suffix lookups")
+    void shouldIndexSuffixes() {
+        PhoneTrie trie = new PhoneTrie(true);
+        trie.update(null, new StoredContact("a", "A", "+1 555 0100", null, 1));
+        trie.update(null, new StoredContact("b", "B", "0044 20 7946 0100", null, 2));
+
+        assertEquals("00105551", trie.keyOf(new StoredContact("a", "A", "+1 555 0100", null, 1)));
+        assertEquals(Arrays.asList("a", "b"), visit(trie, "0010", 10));
+        assertEquals(Arrays.asList("b"), visit(trie, "00106497", 10));
+    }
+
+    @Test
+    @DisplayName("Should move ids on change and skip rejected ids without counting them")
+    void shouldFollowUpdatesAndSkipRejected() {
+        PhoneTrie trie = new PhoneTrie(false);
+        StoredContact v1 = new StoredContact("a", "A", "555 0100", null, 1);
+        StoredContact v2 = new StoredContact("a", "A", "555 0200", null, 2);
+        trie.update(null, v1);
+        trie.update(null, new StoredContact("b", "B", "555 0300", null, 3));
+        trie.update(v1, v2);
+
+        assertTrue(visit(trie, "5550100", 10).isEmpty(), "Old number should be unlinked.");
+        assertEquals(Arrays.asList("a", "b"), visit(trie, "555", 10));
+
+        List<String> accepted = new ArrayList<>();
+        trie.visit("555", 1, id -> !id.equals("a") && accepted.add(id));
+        assertEquals(Arrays.asList("b"), accepted, "Rejected ids should not use up the limit.");
+
+        trie.update(v2, null);
+        trie.update(new StoredContact("b", "B", "555 0300", null, 3), null);
+        assertTrue(visit(trie, "", 10).isEmpty());
+    }
+
+    private static List<String> visit(PhoneTrie trie, String digits, int limit) {
+        List<String> ids = new ArrayList<>();
+        trie.visit(digits, limit, ids::add);
+        return ids;
+    }
+}
@@ -0,0 +1,36 @@
+package com.addressbook.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RelevanceTest {
+
+    @Test
+    @DisplayName("Should order match kinds before fields")
+    void shouldOrderKindsBeforeFields() {
+        int exactPhone = Relevance.score(new StoredContact("1", null, "555", null, 1), "555");
+        int prefixName = Relevance.score(new StoredContact("2", "5559 Club", null, null, 2), "555");
+        int prefixEmail = Relevance.score(new StoredContact("3", null, null, "555@example.com", 3), "555");
+        int wordPrefixName = Relevance.score(new StoredContact("4", "Club 5559", null, null, 4), "555");
+        int substringName = Relevance.score(new StoredContact("5", "Club5559", null, null, 5), "555");
+
+        assertTrue(exactPhone > prefixName, "An exact match in any field should beat a prefix match.");
+        assertTrue(prefixName > prefixEmail, "Name should beat email for the same kind of match.");
+        assertTrue(prefixEmail > wordPrefixName);
+        assertTrue(wordPrefixName > substringName);
+        assertTrue(substringName > Relevance.NONE);
+    }
+
+    @Test
+    @DisplayName("Should ignore case in name and email but not in phone, and take the best field")
+    void shouldScoreBestField() {
+        StoredContact contact = new StoredContact("1", "Ada LOVELACE", "+44 ADA", "ada@example.com", 1);
+
+        assertEquals(Relevance.score(new StoredContact("2", "Mr lovelace", null, null, 2), "lovelace"),
+                Relevance.score(contact, "lovelace"), "Name matches should ignore case.");
+        assertEquals(Relevance.NONE, Relevance.score(new StoredContact("4", null, "+44 ADA", null, 4), "ada"));
+        assertTrue(Relevance.score(contact, "ada") > Relevance.score(contact, "lace"));
+    }
+}
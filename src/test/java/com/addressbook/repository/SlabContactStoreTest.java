@@ -0,0 +1,144 @@
+package com.addressbook.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlabContactStoreTest {
+
+    @Test
+    @DisplayName("Should store, replace and remove contact versions")
+    void shouldStoreReplaceAndRemove() {
+        SlabContactStore store = new SlabContactStore();
+        store.compute("1", (id, previous) -> new StoredContact(id, "Zoë Smith", null, "zoe@example.com", 1));
+        store.compute("2", (id, previous) -> new StoredContact(id, "Bob Jones", "222", "bob@example.com", 2));
+
+        StoredContact replaced = store.compute("1", (id, previous) -> {
+            assertEquals("Zoë Smith", previous.getName());
+            return new StoredContact(id, previous.getName(), "111", previous.getEmail(), 3);
+        });
+
+        assertEquals(2, store.size());
+        assertEquals("111", store.get("1").getPhone());
+        assertEquals(3, store.get("1").getVersion());
+        assertEquals("111", replaced.getPhone());
+
+        assertNull(store.compute("2", (id, previous) -> null));
+        assertNull(store.get("2"));
+        assertNull(store.compute("missing", (id, previous) -> null), "Removing a missing id should be a no-op.");
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    @DisplayName("Should store canonical UUID ids as 16 bytes and keep other ids as strings")
+    void shouldStoreUuidAndStringIds() {
+        SlabContactStore store = new SlabContactStore();
+        String uuid = UUID.randomUUID().toString();
+        store.compute(uuid, (id, previous) -> new StoredContact(id, "Alice", null, null, 1));
+        store.compute("legacy-1", (id, previous) -> new StoredContact(id, "Bob", null, null, 2));
+
+        assertEquals(uuid, store.get(uuid).getId());
+        assertEquals("Alice", store.get(uuid).getName());
+        assertEquals("Bob", store.get("legacy-1").getName());
+        assertNull(store.get(uuid.toUpperCase()), "Non-canonical spelling of an id is a different id.");
+        assertTrue(store.estimatedBytes() > 0);
+    }
+
+    @Test
+    @DisplayName("Should keep every contact reachable across table growth and slab compaction")
+    void shouldSurviveGrowthAndCompaction() {
+        SlabContactStore store = new SlabContactStore(256);
+        for (int round = 0; round < 20; round++) {
+            int version = round;
+            for (int i = 0; i < 500; i++) {
+                store.compute("id-" + i, (id, previous) -> new StoredContact(id, "Name " + version, "555", "e@x.io", version));
+            }
+            for (int i = 0; i < 500; i += 7) {
+                store.compute("id-" + i, (id, previous) -> null);
+            }
+        }
+
+        Set<String> ids = new HashSet<>();
+        store.forEach(contact -> {
+            assertEquals("Name 19", contact.getName());
+            ids.add(contact.getId());
+        });
+        assertEquals(500 - 72, ids.size());
+        assertEquals(ids.size(), store.size());
+        assertEquals(ids.size(), store.toArray().length);
+        assertEquals("Name 19", store.get("id-1").getName());
+        assertNull(store.get("id-0"));
+        assertTrue(store.estimatedBytes() < 500L * 200, "Superseded records should have been compacted away.");
+    }
+
+    @Test
+    @DisplayName("Should serve consistent reads while writers update contacts")
+    void shouldReadConsistentlyDuringWrites() throws Exception {
+        SlabContactStore store = new SlabContactStore(4096);
+        for (int i = 0; i < 200; i++) {
+            store.compute("id-" + i, (id, previous) -> new StoredContact(id, id, id, id, 0));
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    while (running.get()) {
+                        for (int i = 0; i < 200; i++) {
+                            StoredContact contact = store.get("id-" + i);
+                            assertNotNull(contact);
+                            assertEquals(contact.getName(), contact.getPhone(), "Fields should come from one version.");
+                        }
+                    }
+                }));
+            }
+            executor.submit(() -> {
+                for (int v = 1; v <= 200; v++) {
+                    String value = "v" + v;
+                    for (int i = 0; i < 200; i++) {
+                        int version = v;
+                        store.compute("id-" + i, (id, previous) -> new StoredContact(id, value, value, value, version));
+                    }
+                }
+                running.set(false);
+            }).get();
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            running.set(false);
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should need fewer bytes per contact than the heap store")
+    void shouldUseLessMemoryThanHeapStore() {
+        SlabContactStore slab = new SlabContactStore();
+        HeapContactStore heap = new HeapContactStore();
+        int count = 50_000;
+        for (int i = 0; i < count; i++) {
+            StoredContact contact = new StoredContact(UUID.randomUUID().toString(), "Contact Name " + i,
+                    "+1 555 " + i, "contact" + i + "@example.com", i);
+            slab.compute(contact.getId(), (id, previous) -> contact);
+            heap.compute(contact.getId(), (id, previous) -> contact);
+        }
+
+        long slabPerContact = slab.estimatedBytes() / count;
+        long heapPerContact = heap.estimatedBytes() / count;
+        assertTrue(slabPerContact * 3 < heapPerContact * 2,
+                "Slab store should need at most two thirds of the bytes per contact: slab=" + slabPerContact + ", heap=" + heapPerContact);
+    }
+}
@@ -0,0 +1,61 @@
+package com.addressbook.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+    }
+
+    @Test
+    @DisplayName("Should return contacts containing every trigram of the query")
+    void shouldReturnCandidatesContainingAllTrigrams() {
+        index.update(null, new StoredContact("1", "Alice Smith", "111-222-3333", "alice@example.com", 1));
+        index.update(null, new StoredContact("2", "Bob Smithers", "444-555-6666", "bob@mail.com", 1));
+        index.update(null, new StoredContact("3", "Charlie Day", "777-888-9999", "charlie@web.org", 1));
+
+        assertEquals(Set.of("1", "2"), index.candidates("smith"));
+        assertEquals(Set.of("2"), index.candidates("555-6"));
+        assertTrue(index.candidates("zzz").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not produce trigrams spanning two fields")
+    void shouldNotSpanFields() {
+        index.update(null, new StoredContact("1", "abc", "def", "ghi", 1));
+
+        assertTrue(index.candidates("cde").isEmpty(), "Trigram across name and phone should not be indexed.");
+    }
+
+    @Test
+    @DisplayName("Should drop postings of removed and replaced contacts")
+    void shouldDropRemovedPostings() {
+        StoredContact original = new StoredContact("1", "Alice Smith", "111", "alice@example.com", 1);
+        StoredContact renamed = new StoredContact("1", "Alice Jones", "111", "alice@example.com", 2);
+        index.update(null, original);
+        index.update(original, renamed);
+
+        assertTrue(index.candidates("smith").isEmpty());
+        assertEquals(Set.of("1"), index.candidates("jones"));
+        assertEquals(Set.of("1"), index.candidates("alice"), "Trigrams shared by both versions should be kept.");
+
+        index.update(renamed, null);
+        assertTrue(index.candidates("alice").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject queries shorter than a trigram")
+    void shouldRejectShortQueries() {
+        assertThrows(IllegalArgumentException.class, () -> index.candidates("ab"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.addressbook.service;
+
+import com.addressbook.model.Contact;
+import com.addressbook.model.ContactRequest;
+import com.addressbook.model.ImportReport;
+import com.addressbook.repository.InMemoryContactRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class ContactImportServiceTest {
+
+    @Mock
+    private ContactService contactService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private ContactImportService contactImportService;
+
+    private final List<List<String>> batches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(contactImportService, "batchSize", 2);
+        lenient().when(contactService.createContacts(anyList())).thenAnswer(invocation -> {
+            List<ContactRequest> requests = invocation.getArgument(0);
+            batches.add(requests.stream().map(ContactRequest::getName).collect(Collectors.toList()));
+            return requests.stream().map(r -> new Contact("id", r.getName(), r.getPhone(), r.getEmail()))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    @DisplayName("Should import NDJSON in bounded batches and report rejected lines")
+    void shouldImportNdjson() throws IOException {
+        String upload = "{\"name\":\"Alice\",\"phone\":\"111\"}\n"
+                + "\n"
+                + "{\"name\":\"Bob\"\n"
+                + "{\"name\":\"Carol\",\"email\":\"carol@example.com\"}\n"
+                + "{}\n"
+                + "{\"name\":\"Dave\"}\n";
+
+        ImportReport report = contactImportService.importNdjson(stream(upload));
+
+        assertEquals(3, report.getCreated());
+        assertEquals(2, report.getRejected());
+        assertEquals(List.of(List.of("Alice", "Carol"), List.of("Dave")), batches, "Contacts should be created two at a time.");
+        assertEquals(3, report.getErrors().get(0).getLine(), "Malformed JSON should be reported with its line number.");
+        assertEquals(5, report.getErrors().get(1).getLine(), "Empty contact should be reported with its line number.");
+    }
+
+    @Test
+    @DisplayName("Should reject an overlong NDJSON line without reading it into memory and keep going")
+    void shouldRejectOverlongNdjsonLines() throws IOException {
+        ReflectionTestUtils.setField(contactImportService, "maxRecordBytes", 9000);
+        String longName = "A".repeat(8500);
+        String upload = "{\"name\":\"" + longName + "\"}\n"
+                + "{\"name\":\"" + "B".repeat(20000) + "\"}\n"
+                + "{\"name\":\"Carol\"}\r\n"
+                + "{\"name\":\"Dave\"}";
+
+        ImportReport report = contactImportService.importNdjson(stream(upload));
+
+        assertEquals(3, report.getCreated());
+        assertEquals(1, report.getRejected());
+        assertEquals(2, report.getErrors().get(0).getLine(), "The overlong line should be reported with its line number.");
+        assertEquals(List.of(List.of(longName, "Carol"), List.of("Dave")), batches,
+                "Lines spanning reads, ending in CRLF or at the end of the upload should all be imported.");
+    }
+
+    @Test
+    @DisplayName("Should import CSV with a header row and keep going after a bad record")
+    void shouldImportCsv() throws IOException {
+        String upload = "name,phone,email\n"
+                + "Alice,111,alice@example.com\n"
+                + "Bob,,\n"
+                + ",,\n"
+                + "\"Smith, Carol\",333,carol@example.com\n";
+
+        ImportReport report = contactImportService.importCsv(stream(upload));
+
+        assertEquals(3, report.getCreated());
+        assertEquals(1, report.getRejected());
+        assertEquals(List.of(List.of("Alice", "Bob"), List.of("Smith, Carol")), batches);
+        assertEquals(4, report.getErrors().get(0).getLine());
+    }
+
+    @Test
+    @DisplayName("Should cap the number of listed errors but count every rejection")
+    void shouldCapReportedErrors() throws IOException {
+        ReflectionTestUtils.setField(contactImportService, "maxReportedErrors", 1);
+
+        ImportReport report = contactImportService.importNdjson(stream("x\ny\nz\n"));
+
+        assertEquals(0, report.getCreated());
+        assertEquals(3, report.getRejected());
+        assertEquals(1, report.getErrors().size());
+    }
+
+    @Test
+    @DisplayName("Should reject only the lines that duplicate a unique email or phone")
+    void shouldRejectDuplicateLines() throws IOException {
+        InMemoryContactRepository repository = new InMemoryContactRepository();
+        repository.setUniqueEmails(true);
+        repository.setUniquePhones(true);
+        repository.save(new Contact("existing", "Zed", null, "zed@example.com"));
+        ContactService service = new ContactService();
+        ReflectionTestUtils.setField(service, "repository", repository);
+        ContactImportService importService = new ContactImportService();
+        ReflectionTestUtils.setField(importService, "contactService", service);
+        ReflectionTestUtils.setField(importService, "batchSize", 4);
+
+        String upload = "name,phone,email\n"
+                + "Alice,111,alice@example.com\n"
+                + "Bob,222,ZED@example.com\n"
+                + "Carol,333,carol@example.com\n"
+                + "Dave,111,dave@example.com\n"
+                + "Erin,444,erin@example.com\n";
+
+        ImportReport report = importService.importCsv(stream(upload));
+
+        assertEquals(3, report.getCreated(), "The rest of each batch should still be created.");
+        assertEquals(2, report.getRejected());
+        assertEquals(3, report.getErrors().get(0).getLine(), "A duplicate of a stored contact should be reported by line.");
+        assertTrue(report.getErrors().get(0).getMessage().contains("email"), report.getErrors().get(0).getMessage());
+        assertEquals(5, report.getErrors().get(1).getLine(), "A duplicate within the batch should be reported by line.");
+        assertEquals(4, repository.size());
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,28 +1,35 @@
 package com.addressbook.service;
 
+import com.addressbook.constants.Constants;
 import com.addressbook.exception.ContactNotFoundException;
 import com.addressbook.model.Contact;
+import com.addressbook.model.ContactPage;
 import com.addressbook.model.ContactRequest;
 import com.addressbook.model.ContactUpdateRequest;
+import com.addressbook.model.SearchMode;
 import com.addressbook.repository.InMemoryContactRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiFunction;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -34,6 +41,9 @@ class ContactServiceTest {
     @Mock
     private InMemoryContactRepository repository;
 
+    @Spy
+    private SearchResultCache searchCache = new SearchResultCache();
+
     @InjectMocks
     private ContactService contactService;
 
@@ -51,7 +61,8 @@ class ContactServiceTest {
 
         createdContacts.forEach(contact -> assertNotNull(contact.getId(), "Contact ID should not be null."));
 
-        verify(repository, times(2)).save(any(Contact.class));
+        verify(repository, times(1)).saveAll(createdContacts);
+        verify(repository, never()).save(any(Contact.class));
     }
 
     @Test
@@ -62,7 +73,10 @@ class ContactServiceTest {
         ContactUpdateRequest updateRequest = new ContactUpdateRequest(contactId, "New Name", "New Phone", "new@example.com");
         List<ContactUpdateRequest> updateRequests = Collections.singletonList(updateRequest);
 
-        when(repository.findById(contactId)).thenReturn(Optional.of(existingContact));
+        when(repository.updateAll(eq(updateRequests), any(), any())).thenAnswer(invocation -> {
+            BiFunction<Contact, ContactUpdateRequest, Contact> mutation = invocation.getArgument(2);
+            return Collections.singletonList(mutation.apply(existingContact, updateRequest));
+        });
         List<Contact> updatedContacts = contactService.updateContacts(updateRequests);
 
         assertNotNull(updatedContacts, "Updated contacts list should not be null.");
@@ -73,8 +87,8 @@ class ContactServiceTest {
         assertEquals("New Phone", updatedContact.getPhone(), "Contact phone should be updated.");
         assertEquals("new@example.com", updatedContact.getEmail(), "Contact email should be updated.");
 
-        verify(repository, times(1)).findById(contactId);
-        verify(repository, times(1)).save(updatedContact);
+        assertEquals("Old Name", existingContact.getName(), "Existing contact should not be mutated in place.");
+        verify(repository, times(1)).updateAll(eq(updateRequests), any(), any());
     }
 
     @Test
@@ -85,7 +99,8 @@ class ContactServiceTest {
         ContactUpdateRequest updateRequest = new ContactUpdateRequest(nonExistentId, "Name", "Phone", "email@example.com");
         List<ContactUpdateRequest> updateRequests = Collections.singletonList(updateRequest);
 
-        when(repository.findById(nonExistentId)).thenReturn(Optional.empty());
+        when(repository.updateAll(eq(updateRequests), any(), any()))
+                .thenThrow(new ContactNotFoundException("Contact with ID " + nonExistentId + " not found."));
 
         ContactNotFoundException thrown = assertThrows(ContactNotFoundException.class, () -> {
             contactService.updateContacts(updateRequests);
@@ -95,6 +110,7 @@ class ContactServiceTest {
                 "Exception message should be correct.");
 
         verify(repository, never()).save(any(Contact.class));
+        verify(repository, never()).saveAll(anyList());
     }
 
     @Test
@@ -102,17 +118,14 @@ class ContactServiceTest {
     void shouldDeleteMultipleExistingContacts() {
         List<String> contactIds = Arrays.asList("id1", "id2", "id3");
 
-        when(repository.deleteById("id1")).thenReturn(true);
-        when(repository.deleteById("id2")).thenReturn(true);
-        when(repository.deleteById("id3")).thenReturn(true);
+        when(repository.deleteAll(contactIds)).thenReturn(3);
 
         int deletedCount = contactService.deleteContacts(contactIds);
 
         assertEquals(3, deletedCount, "Should delete 3 contacts.");
 
-        verify(repository, times(1)).deleteById("id1");
-        verify(repository, times(1)).deleteById("id2");
-        verify(repository, times(1)).deleteById("id3");
+        verify(repository, times(1)).deleteAll(contactIds);
+        verify(repository, never()).deleteById(anyString());
     }
 
 
@@ -121,17 +134,13 @@ class ContactServiceTest {
     void shouldDeleteMixOfExistingAndNonExistingContacts() {
         List<String> contactIds = Arrays.asList("id1", "id_non_existent", "id2");
 
-        when(repository.deleteById("id1")).thenReturn(true);
-        when(repository.deleteById("id_non_existent")).thenReturn(false);
-        when(repository.deleteById("id2")).thenReturn(true);
+        when(repository.deleteAll(contactIds)).thenReturn(2);
 
         int deletedCount = contactService.deleteContacts(contactIds);
 
         assertEquals(2, deletedCount, "Should delete 2 contacts (id1 and id2).");
 
-        verify(repository, times(1)).deleteById("id1");
-        verify(repository, times(1)).deleteById("id_non_existent");
-        verify(repository, times(1)).deleteById("id2");
+        verify(repository, times(1)).deleteAll(contactIds);
     }
 
 
@@ -180,4 +189,87 @@ class ContactServiceTest {
         assertTrue(actualResults.isEmpty(), "Results list should be empty.");
         verify(repository, times(1)).search(searchQuery);
     }
+
+    @Test
+    @DisplayName("Should answer a repeated search from the cache")
+    void shouldCacheRepeatedSearch() {
+        when(repository.search("smith")).thenReturn(Collections.singletonList(new Contact("c1", "Smith", null, null)));
+
+        contactService.searchContacts("smith");
+        List<Contact> actualResults = contactService.searchContacts("smith");
+
+        assertEquals(1, actualResults.size());
+        verify(repository, times(1)).search("smith");
+    }
+
+    @Test
+    @DisplayName("Should return a page of search results from the repository")
+    void shouldSearchContactsPage() {
+        ContactPage page = new ContactPage(Collections.singletonList(new Contact("1", "Test", null, null)), "1");
+        when(repository.search("test", null, 1)).thenReturn(page);
+
+        assertEquals(page, contactService.searchContacts("test", (String) null, 1), "Service should return the repository page.");
+    }
+
+    @Test
+    @DisplayName("Should cap the page size instead of overflowing on huge limits")
+    void shouldCapSearchPageSize() {
+        ContactPage page = new ContactPage(Collections.singletonList(new Contact("1", "Test", null, null)), null);
+        when(repository.search("test", null, Constants.Search.MAX_PAGE_SIZE)).thenReturn(page);
+
+        assertEquals(page, contactService.searchContacts("test", (String) null, Integer.MAX_VALUE),
+                "A limit past the maximum should get a maximum-size page.");
+    }
+
+    @Test
+    @DisplayName("Should resolve exact email and phone searches through the repository indexes")
+    void shouldSearchByExactMode() {
+        List<Contact> found = Collections.singletonList(new Contact("1", "Alice", "555", "alice@example.com"));
+        when(repository.findByEmail("alice@example.com")).thenReturn(found);
+        when(repository.findByPhone("555")).thenReturn(found);
+
+        assertEquals(found, contactService.searchContacts("alice@example.com", SearchMode.EMAIL, 10));
+        assertEquals(found, contactService.searchContacts("555", SearchMode.PHONE, 10));
+        verify(repository, never()).search(anyString());
+    }
+
+    @Test
+    @DisplayName("Should resolve phone prefix and suffix searches through the phone tries")
+    void shouldSearchByPhonePrefixAndSuffix() {
+        List<Contact> found = Collections.singletonList(new Contact("1", "Alice", "+1 555 0100", "alice@example.com"));
+        when(repository.findByPhonePrefix("+1 555", 10)).thenReturn(found);
+        when(repository.findByPhoneSuffix("0100", 10)).thenReturn(found);
+
+        assertEquals(found, contactService.searchContacts("+1 555", SearchMode.PHONE_PREFIX, 10));
+        assertEquals(found, contactService.searchContacts("0100", SearchMode.PHONE_SUFFIX, 10));
+        verify(repository, never()).search(anyString());
+    }
+
+    @Test
+    @DisplayName("Should resolve fuzzy searches through the fuzzy name index")
+    void shouldSearchFuzzily() {
+        List<Contact> found = Collections.singletonList(new Contact("1", "Jonathan Smith", "555", "jon@example.com"));
+        when(repository.findByFuzzyName("jonathon smyth", 10)).thenReturn(found);
+
+        assertEquals(found, contactService.searchContacts("jonathon smyth", SearchMode.FUZZY, 10));
+        verify(repository, never()).search(anyString());
+    }
+
+    @Test
+    @DisplayName("Should complete prefixes through the repository")
+    void shouldAutocomplete() {
+        when(repository.complete("jo", 3)).thenReturn(Arrays.asList("john", "jonas"));
+
+        assertEquals(Arrays.asList("john", "jonas"), contactService.autocomplete("jo", 3));
+    }
+
+    @Test
+    @DisplayName("Should resolve ranked searches through the repository top-K search")
+    void shouldSearchRanked() {
+        List<Contact> found = Collections.singletonList(new Contact("1", "Smith", "555", "smith@example.com"));
+        when(repository.searchRanked("smith", 10)).thenReturn(found);
+
+        assertEquals(found, contactService.searchContacts("smith", SearchMode.RANKED, 10));
+        verify(repository, never()).search(anyString());
+    }
 }
@@ -0,0 +1,169 @@
+package com.addressbook.service;
+
+import com.addressbook.model.Contact;
+import com.addressbook.repository.InMemoryContactRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchResultCacheTest {
+
+    private InMemoryContactRepository repository;
+    private SearchResultCache cache;
+    private AtomicInteger searches;
+    private Function<String, List<Contact>> search;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryContactRepository();
+        cache = new SearchResultCache();
+        cache.setRepository(repository);
+        searches = new AtomicInteger();
+        search = query -> {
+            searches.incrementAndGet();
+            return repository.search(query);
+        };
+        repository.save(new Contact("1", "Alice Smith", "111", "alice@example.com"));
+        repository.save(new Contact("2", "Bob Jones", "222", "bob@example.com"));
+    }
+
+    @Test
+    @DisplayName("Should invalidate only the cached queries a write could change")
+    void shouldInvalidateOnlyAffectedQueries() {
+        cache.get("smith", search);
+        cache.get("jones", search);
+        cache.get("ca", search);
+        assertEquals(3, searches.get());
+
+        repository.save(new Contact("3", "Carol Smith", "333", "carol@example.com"));
+
+        assertEquals(2, cache.get("smith", search).size(), "New matching contact should be visible.");
+        assertEquals(1, cache.get("jones", search).size());
+        assertEquals(1, cache.get("ca", search).size(), "Short query matching the new contact should be refreshed.");
+        assertEquals(5, searches.get(), "Only 'smith' and 'ca' should have been searched again.");
+    }
+
+    @Test
+    @DisplayName("Should invalidate queries that matched the previous version of an updated or deleted contact")
+    void shouldInvalidateOnUpdateAndDelete() {
+        cache.get("smith", search);
+        repository.update("1", contact -> new Contact(null, "Alice Brown", contact.getPhone(), contact.getEmail()));
+        assertTrue(cache.get("smith", search).isEmpty(), "Renamed contact should no longer match.");
+
+        cache.get("jones", search);
+        repository.deleteById("2");
+        assertTrue(cache.get("jones", search).isEmpty(), "Deleted contact should no longer match.");
+    }
+
+    @Test
+    @DisplayName("Should not cache a result computed while a matching write landed")
+    void shouldNotCacheStaleInFlightResult() {
+        List<Contact> first = cache.get("smith", query -> {
+            List<Contact> results = repository.search(query);
+            repository.save(new Contact("3", "Carol Smith", "333", "carol@example.com"));
+            return results;
+        });
+
+        assertEquals(1, first.size(), "The in-flight search returns what it found.");
+        assertEquals(2, cache.get("smith", search).size(), "Its stale result must not be served afterwards.");
+        assertEquals(1, searches.get());
+    }
+
+    @Test
+    @DisplayName("Should stay within the byte cap and report cache statistics")
+    void shouldRespectByteCapAndRecordStats() {
+        SearchResultCache small = new SearchResultCache(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        small.setMeterRegistry(registry);
+
+        small.get("smith", search);
+        small.get("smith", search);
+
+        assertEquals(2, searches.get(), "Entries larger than the cap should not be kept.");
+        assertEquals(0, small.size());
+        assertEquals(2, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Should let concurrent identical searches share one execution")
+    void shouldCoalesceConcurrentSearches() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.setMeterRegistry(registry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, List<Contact>> slowSearch = query -> {
+            started.countDown();
+            await(release);
+            return search.apply(query);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<List<Contact>> first = executor.submit(() -> cache.get("smith", slowSearch));
+            started.await();
+            List<Future<List<Contact>>> joiners = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                joiners.add(executor.submit(() -> cache.get("smith", slowSearch)));
+            }
+            while (registry.get("contacts.search.coalesced").counter().count() < 3) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertEquals(1, first.get().size());
+            for (Future<List<Contact>> joiner : joiners) {
+                assertSame(first.get(), joiner.get(), "Joined callers should receive the shared result.");
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, searches.get(), "Only one search should have run.");
+    }
+
+    @Test
+    @DisplayName("Should start a fresh search for callers arriving after a write lands mid-flight")
+    void shouldNotJoinSearchMadeStaleByWrite() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<Contact>> inFlight = executor.submit(() -> cache.get("smith", query -> {
+                List<Contact> results = search.apply(query);
+                started.countDown();
+                await(release);
+                return results;
+            }));
+            started.await();
+            repository.save(new Contact("3", "Carol Smith", "333", "carol@example.com"));
+
+            assertEquals(2, cache.get("smith", search).size(), "A caller after the write must see it.");
+            release.countDown();
+            assertEquals(1, inFlight.get().size(), "The stale search still answers its own caller.");
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(2, searches.get());
+        assertEquals(2, cache.get("smith", search).size());
+        assertEquals(2, searches.get(), "The fresh result should have been cached.");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.addressbook.repository;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Compares a whole vector of candidate positions at once: a position is a candidate when both the needle's
+ * first byte and its last byte are found where they should be, and only candidates are checked byte by byte.
+ * Loading this class fails with a {@link LinkageError} when the incubator module is not present.
+ */
+final class VectorByteSearch implements ByteSearch {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    @Override
+    public int indexOf(byte[] text, int from, int to, byte[] needle) {
+        int n = needle.length;
+        if (n == 0) {
+            return ScalarByteSearch.INSTANCE.indexOf(text, from, to, needle);
+        }
+        ByteVector first = ByteVector.broadcast(SPECIES, needle[0]);
+        ByteVector last = ByteVector.broadcast(SPECIES, needle[n - 1]);
+        int lanes = SPECIES.length();
+        // Candidate starts run up to to - n; each step also loads the lanes ending at i + lanes + n - 2.
+        int i = from;
+        for (int bound = to - n + 1 - lanes; i <= bound; i += lanes) {
+            long candidates = ByteVector.fromArray(SPECIES, text, i).eq(first)
+                    .and(ByteVector.fromArray(SPECIES, text, i + n - 1).eq(last))
+                    .toLong();
+            while (candidates != 0) {
+                int offset = i + Long.numberOfTrailingZeros(candidates);
+                if (ScalarByteSearch.matchesAt(text, offset, needle)) {
+                    return offset;
+                }
+                candidates &= candidates - 1;
+            }
+        }
+        return ScalarByteSearch.INSTANCE.indexOf(text, i, to, needle);
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+}